@@ -0,0 +1,42 @@
+package vrp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vrp.Data;
+
+// Generating synthetic instances of growing size, reading "mopta" is in MoptaBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBenchmark {
+  @Param({ "10", "25", "50", "100", "200" })
+  public int numCustomers;
+
+  @Param({ "0.3" })
+  public double density;
+
+  @Param({ "0.5" })
+  public double demandSpread;
+
+  @Param({ "4" })
+  public int customersPerVehicle;
+
+  @Benchmark
+  public Data generate() {
+    return Instances.generate(numCustomers, density, demandSpread, customersPerVehicle);
+  }
+}
@@ -0,0 +1,18 @@
+package vrp.bench;
+
+import vrp.Data;
+import vrp.Generator;
+
+// The synthetic instances shared by the benchmarks, the seed is fixed so that runs are comparable
+final class Instances {
+  static final long SEED = 20180101L;
+  static final int TOURS_PER_CUSTOMER = 3;
+
+  private Instances() {
+  }
+
+  static Data generate(int numCustomers, double density, double demandSpread, int customersPerVehicle) {
+    int numVehicles = (numCustomers + customersPerVehicle - 1) / customersPerVehicle;
+    return Generator.generate(SEED, numCustomers, density, demandSpread, numVehicles, TOURS_PER_CUSTOMER);
+  }
+}
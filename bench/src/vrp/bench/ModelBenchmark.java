@@ -0,0 +1,56 @@
+package vrp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ilog.concert.IloException;
+import vrp.Data;
+import vrp.Model;
+
+// Building the routing model on synthetic instances of growing size, solving is in SolveBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+  @Param({ "10", "25", "50", "100", "200" })
+  public int numCustomers;
+
+  @Param({ "0.3" })
+  public double density;
+
+  @Param({ "0.5" })
+  public double demandSpread;
+
+  @Param({ "4" })
+  public int customersPerVehicle;
+
+  Data data;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    data = Instances.generate(numCustomers, density, demandSpread, customersPerVehicle);
+    data.metrics.setEnabled(false); // nothing is recorded per phase inside the measured region
+  }
+
+  @Benchmark
+  public Model construct() throws IloException {
+    Model constructed = new Model(data, false, -1);
+    constructed.end();
+    return constructed;
+  }
+}
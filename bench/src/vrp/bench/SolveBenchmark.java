@@ -0,0 +1,82 @@
+package vrp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ilog.concert.IloException;
+import vrp.Data;
+import vrp.Model;
+import vrp.Solution;
+
+// Solving the routing model with a time limit on synthetic instances of growing size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolveBenchmark {
+  public static final int MAX_CHECKED_CUSTOMERS = 10; // instances up to this size must be solved in setup
+
+  @Param({ "10", "25", "50", "100", "200" })
+  public int numCustomers;
+
+  @Param({ "0.3" })
+  public double density;
+
+  @Param({ "0.5" })
+  public double demandSpread;
+
+  @Param({ "4" })
+  public int customersPerVehicle;
+
+  @Param({ "10" })
+  public double timeLimit; // seconds, large instances are not solved to optimality
+
+  Data data;
+  Model model; // built fresh for every solve
+
+  // Small instances are solved once up front, an infeasible instance would only benchmark the proof of infeasibility
+  @Setup(Level.Trial)
+  public void generate() throws IloException {
+    data = Instances.generate(numCustomers, density, demandSpread, customersPerVehicle);
+    data.metrics.setEnabled(false);
+    if (numCustomers <= MAX_CHECKED_CUSTOMERS) {
+      build();
+      Solution solution = model.solve();
+      end();
+      if (solution == null)
+        throw new IllegalStateException("Generated instance of " + numCustomers + " customers has no solution");
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void build() throws IloException {
+    model = new Model(data, false, -1);
+    model.setPrint(false);
+    model.setTimeLimit(timeLimit);
+  }
+
+  @TearDown(Level.Invocation)
+  public void end() {
+    model.end();
+  }
+
+  @Benchmark
+  public Solution solve() throws IloException {
+    return model.solve();
+  }
+}
@@ -0,0 +1,55 @@
+package vrp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ilog.concert.IloException;
+import vrp.Data;
+import vrp.Model;
+
+// Enumerating all valid tours, this grows exponentially with the customers so the sizes stay small
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TourBenchmark {
+  @Param({ "6", "8", "10" })
+  public int numCustomers;
+
+  @Param({ "0.3", "0.6" })
+  public double density;
+
+  Data data;
+  Model tours; // built fresh for every enumeration
+
+  @Setup(Level.Trial)
+  public void generate() {
+    data = Instances.generate(numCustomers, density, 0.5, 4);
+    data.metrics.setEnabled(false);
+  }
+
+  @Setup(Level.Invocation)
+  public void build() throws IloException {
+    tours = new Model(data);
+    tours.setPrint(false);
+  }
+
+  @Benchmark
+  public void solveAll() throws IloException {
+    tours.solveAll(); // ends the solver
+  }
+}
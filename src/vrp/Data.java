@@ -2,16 +2,25 @@ package vrp;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Scanner;
 
 public class Data {
+  public static final int MAGIC = 0x56525049; // "VRPI", start of a binary instance
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 96; // 7 ints, padding, 8 doubles
+
   // Problem input
   public int numVehicles;
   public int numCustomers; // customers are from 1 to n, 0 is for depo
   public int[] demandOfCustomer; // this can be learned from historical data
-  public double[][] distanceFromTo; // [numCustomer+1][numCustomer+1] this is known
-  public double[][] timeFromTo; // [numCustomer+1][numCustomer+1] this can be learned from historical data
+  public Matrix distanceFromTo; // [numCustomer+1][numCustomer+1] this is known
+  public Matrix timeFromTo; // [numCustomer+1][numCustomer+1] this can be learned from historical data
   public double startTime; // the starting time to leave depo in minutes 0..1440
   public double latestDeliveryTime; // the last minute to deliver without penalty
   public int maxCapacity; // same capacity for every vehicle
@@ -32,10 +41,22 @@ public class Data {
   public int numSteps; // from depo + customers + to depo
   public int totalDemand; // the sum of all demand
   public int lbNumVehicles; // lower bound on the number of vehicles ceil(totalDemand/capacity)
-  public double[] flatDistances; // [(numCustomer+1)^2] flat version of distanceFromTo
-  public double[] flatTimes; // [(numCustomer+1)^2] flat version of timeFromTo
+
+  // Wall time and allocation from reading the data through the models built on it
+  public Metrics metrics;
+
+  // Computed on the first cache lookup, see Fingerprint.of()
+  Fingerprint fingerprint;
 
   public Data(String instance) {
+    this(instance, null);
+  }
+
+  // toursFile replaces the valid tours of the instance, either a tour table or a checkpoint of the tour enumeration
+  public Data(String instance, String toursFile) {
+    metrics = new Metrics();
+    metrics.start("data");
+
     if (instance.equals("toy")) {
       numVehicles = 3;
       numCustomers = 3;
@@ -57,55 +78,43 @@ public class Data {
           { 0, 2, 1, 0, 0 }, { 0, 2, 3, 0, 0 }, { 0, 3, 1, 0, 0 }, { 0, 3, 2, 0, 0 }, { 0, 1, 2, 3, 0 }, { 0, 1, 3, 2, 0 }, { 0, 2, 1, 3, 0 },
           { 0, 2, 3, 1, 0 }, { 0, 3, 1, 2, 0 }, { 0, 3, 2, 1, 0 } };
 
-      distanceFromTo = new double[numCustomers + 1][numCustomers + 1];
-      distanceFromTo[0][1] = 10;
-      distanceFromTo[0][2] = 20;
-      distanceFromTo[0][3] = 30;
+      distanceFromTo = new Matrix(numCustomers + 1);
+      distanceFromTo.set(0, 1, 10);
+      distanceFromTo.set(0, 2, 20);
+      distanceFromTo.set(0, 3, 30);
 
-      distanceFromTo[1][0] = 10;
-      distanceFromTo[1][2] = 12;
-      distanceFromTo[1][3] = 13;
+      distanceFromTo.set(1, 0, 10);
+      distanceFromTo.set(1, 2, 12);
+      distanceFromTo.set(1, 3, 13);
 
-      distanceFromTo[2][0] = 20;
-      distanceFromTo[2][1] = 12;
-      distanceFromTo[2][3] = 23;
+      distanceFromTo.set(2, 0, 20);
+      distanceFromTo.set(2, 1, 12);
+      distanceFromTo.set(2, 3, 23);
 
-      distanceFromTo[3][0] = 30;
-      distanceFromTo[3][1] = 13;
-      distanceFromTo[3][2] = 23;
+      distanceFromTo.set(3, 0, 30);
+      distanceFromTo.set(3, 1, 13);
+      distanceFromTo.set(3, 2, 23);
 
-      timeFromTo = new double[numCustomers + 1][numCustomers + 1];
-      timeFromTo[0][1] = 10;
-      timeFromTo[0][2] = 20;
-      timeFromTo[0][3] = 30;
+      timeFromTo = new Matrix(numCustomers + 1);
+      timeFromTo.set(0, 1, 10);
+      timeFromTo.set(0, 2, 20);
+      timeFromTo.set(0, 3, 30);
 
-      timeFromTo[1][0] = 10;
-      timeFromTo[1][2] = 12;
-      timeFromTo[1][3] = 13;
+      timeFromTo.set(1, 0, 10);
+      timeFromTo.set(1, 2, 12);
+      timeFromTo.set(1, 3, 13);
 
-      timeFromTo[2][0] = 20;
-      timeFromTo[2][1] = 12;
-      timeFromTo[2][3] = 23;
+      timeFromTo.set(2, 0, 20);
+      timeFromTo.set(2, 1, 12);
+      timeFromTo.set(2, 3, 23);
 
-      timeFromTo[3][0] = 30;
-      timeFromTo[3][1] = 13;
-      timeFromTo[3][2] = 23;
+      timeFromTo.set(3, 0, 30);
+      timeFromTo.set(3, 1, 13);
+      timeFromTo.set(3, 2, 23);
     } else if (instance.equals("mopta")) {
       // Read valid tours
-      File file = new File("data/valid_routes_unique.txt");
-      Scanner read = null;
-      try {
-        read = new Scanner(file);
-        int numValidRoutes = read.nextInt();
-        int tourLength = read.nextInt();
-
-        validTours = new int[numValidRoutes][tourLength];
-        for (int i = 0; i < validTours.length; i++)
-          for (int j = 0; j < validTours[i].length; j++)
-            validTours[i][j] = read.nextInt();
-      } catch (FileNotFoundException e) {
-        System.out.println("Error: valid tours file not found!");
-      }
+      if (toursFile == null)
+        toursFile = "data/valid_routes_unique.txt";
       numVehicles = 8;
       numCustomers = 10;
       maxCapacity = 360;
@@ -116,79 +125,79 @@ public class Data {
       demandOfCustomer = new int[] { 156, 131, 112, 116, 162, 151, 102, 183, 195, 128 };
 
       // TODO: learn timeFromTo from data
-      timeFromTo = new double[numCustomers + 1][numCustomers + 1];
-      timeFromTo[0][1] = 10.6;
-      timeFromTo[0][2] = 32.08;
-      timeFromTo[0][3] = 6.95;
-      timeFromTo[0][5] = 27.64;
-      timeFromTo[0][7] = 24.13;
-      timeFromTo[0][8] = 18.42;
-      timeFromTo[0][9] = 21.2;
-      timeFromTo[0][10] = 19.0;
-
-      timeFromTo[1][0] = 10.6;
-      timeFromTo[1][2] = 20.32;
-      timeFromTo[1][3] = 14.0;
-      timeFromTo[1][5] = 22.0;
-      timeFromTo[1][7] = 27.13;
-      timeFromTo[1][8] = 26.25;
-      timeFromTo[1][9] = 6.7;
-      timeFromTo[1][10] = 24.79;
-
-      timeFromTo[2][0] = 32.08;
-      timeFromTo[2][1] = 20.32;
-      timeFromTo[2][7] = 20.19;
-      timeFromTo[2][9] = 16.35;
-      timeFromTo[2][10] = 30.55;
-
-      timeFromTo[3][0] = 6.95;
-      timeFromTo[3][1] = 14.0;
-      timeFromTo[3][5] = 22.36;
-      timeFromTo[3][6] = 30.38;
-      timeFromTo[3][8] = 18.98;
-      timeFromTo[3][9] = 16.15;
-      timeFromTo[3][10] = 27.65;
-
-      timeFromTo[4][7] = 18.97;
-      timeFromTo[4][8] = 18.34;
-      timeFromTo[4][10] = 12.12;
-
-      timeFromTo[5][0] = 27.64;
-      timeFromTo[5][1] = 22.0;
-      timeFromTo[5][3] = 22.36;
-      timeFromTo[5][6] = 21.61;
-      timeFromTo[5][9] = 25.9;
-
-      timeFromTo[6][3] = 30.38;
-      timeFromTo[6][5] = 21.61;
-
-      timeFromTo[7][0] = 24.13;
-      timeFromTo[7][1] = 27.13;
-      timeFromTo[7][2] = 20.19;
-      timeFromTo[7][4] = 18.97;
-      timeFromTo[7][8] = 19.92;
-      timeFromTo[7][10] = 10.48;
-
-      timeFromTo[8][0] = 18.42;
-      timeFromTo[8][1] = 26.25;
-      timeFromTo[8][3] = 18.98;
-      timeFromTo[8][4] = 18.34;
-      timeFromTo[8][7] = 19.92;
-      timeFromTo[8][10] = 8.01;
-
-      timeFromTo[9][0] = 21.2;
-      timeFromTo[9][1] = 6.7;
-      timeFromTo[9][2] = 16.35;
-      timeFromTo[9][3] = 16.15;
-      timeFromTo[9][5] = 25.9;
-
-      timeFromTo[10][0] = 19.0;
-      timeFromTo[10][1] = 24.79;
-      timeFromTo[10][2] = 30.55;
-      timeFromTo[10][3] = 27.65;
-      timeFromTo[10][4] = 12.12;
-      timeFromTo[10][7] = 10.48;
-      timeFromTo[10][8] = 8.01;
+      timeFromTo = new Matrix(numCustomers + 1);
+      timeFromTo.set(0, 1, 10.6);
+      timeFromTo.set(0, 2, 32.08);
+      timeFromTo.set(0, 3, 6.95);
+      timeFromTo.set(0, 5, 27.64);
+      timeFromTo.set(0, 7, 24.13);
+      timeFromTo.set(0, 8, 18.42);
+      timeFromTo.set(0, 9, 21.2);
+      timeFromTo.set(0, 10, 19.0);
+
+      timeFromTo.set(1, 0, 10.6);
+      timeFromTo.set(1, 2, 20.32);
+      timeFromTo.set(1, 3, 14.0);
+      timeFromTo.set(1, 5, 22.0);
+      timeFromTo.set(1, 7, 27.13);
+      timeFromTo.set(1, 8, 26.25);
+      timeFromTo.set(1, 9, 6.7);
+      timeFromTo.set(1, 10, 24.79);
+
+      timeFromTo.set(2, 0, 32.08);
+      timeFromTo.set(2, 1, 20.32);
+      timeFromTo.set(2, 7, 20.19);
+      timeFromTo.set(2, 9, 16.35);
+      timeFromTo.set(2, 10, 30.55);
+
+      timeFromTo.set(3, 0, 6.95);
+      timeFromTo.set(3, 1, 14.0);
+      timeFromTo.set(3, 5, 22.36);
+      timeFromTo.set(3, 6, 30.38);
+      timeFromTo.set(3, 8, 18.98);
+      timeFromTo.set(3, 9, 16.15);
+      timeFromTo.set(3, 10, 27.65);
+
+      timeFromTo.set(4, 7, 18.97);
+      timeFromTo.set(4, 8, 18.34);
+      timeFromTo.set(4, 10, 12.12);
+
+      timeFromTo.set(5, 0, 27.64);
+      timeFromTo.set(5, 1, 22.0);
+      timeFromTo.set(5, 3, 22.36);
+      timeFromTo.set(5, 6, 21.61);
+      timeFromTo.set(5, 9, 25.9);
+
+      timeFromTo.set(6, 3, 30.38);
+      timeFromTo.set(6, 5, 21.61);
+
+      timeFromTo.set(7, 0, 24.13);
+      timeFromTo.set(7, 1, 27.13);
+      timeFromTo.set(7, 2, 20.19);
+      timeFromTo.set(7, 4, 18.97);
+      timeFromTo.set(7, 8, 19.92);
+      timeFromTo.set(7, 10, 10.48);
+
+      timeFromTo.set(8, 0, 18.42);
+      timeFromTo.set(8, 1, 26.25);
+      timeFromTo.set(8, 3, 18.98);
+      timeFromTo.set(8, 4, 18.34);
+      timeFromTo.set(8, 7, 19.92);
+      timeFromTo.set(8, 10, 8.01);
+
+      timeFromTo.set(9, 0, 21.2);
+      timeFromTo.set(9, 1, 6.7);
+      timeFromTo.set(9, 2, 16.35);
+      timeFromTo.set(9, 3, 16.15);
+      timeFromTo.set(9, 5, 25.9);
+
+      timeFromTo.set(10, 0, 19.0);
+      timeFromTo.set(10, 1, 24.79);
+      timeFromTo.set(10, 2, 30.55);
+      timeFromTo.set(10, 3, 27.65);
+      timeFromTo.set(10, 4, 12.12);
+      timeFromTo.set(10, 7, 10.48);
+      timeFromTo.set(10, 8, 8.01);
 
       // Penalty
       costFixed = 300;
@@ -212,83 +221,100 @@ public class Data {
       neighborsOfLocation[9] = new int[] { 0, 1, 2, 3, 5 };
       neighborsOfLocation[10] = new int[] { 0, 1, 2, 3, 4, 7, 8 };
 
-      distanceFromTo = new double[numCustomers + 1][numCustomers + 1];
-      distanceFromTo[0][0] = 0.0;
-      distanceFromTo[0][1] = 1.96468827043885;
-      distanceFromTo[0][2] = 5.0643007760336936;
-      distanceFromTo[0][3] = 1.1854219150394074;
-      distanceFromTo[0][5] = 4.907218491015141;
-      distanceFromTo[0][7] = 4.640221721305585;
-      distanceFromTo[0][8] = 2.6596014859808714;
-      distanceFromTo[0][9] = 3.080543715187625;
-      distanceFromTo[0][10] = 3.585117510979431;
-
-      distanceFromTo[1][0] = 1.96468827043885;
-      distanceFromTo[1][2] = 3.608830236783567;
-      distanceFromTo[1][3] = 2.6400831314914046;
-      distanceFromTo[1][5] = 4.921232308870278;
-      distanceFromTo[1][7] = 4.717041635672212;
-      distanceFromTo[1][8] = 4.120651436973349;
-      distanceFromTo[1][9] = 1.2596981846086392;
-      distanceFromTo[1][10] = 4.483110549310852;
-
-      distanceFromTo[2][0] = 5.0643007760336936;
-      distanceFromTo[2][1] = 3.608830236783567;
-      distanceFromTo[2][7] = 3.8125014837397604;
-      distanceFromTo[2][9] = 3.7610074859206524;
-      distanceFromTo[2][10] = 5.097154605916928;
-
-      distanceFromTo[3][0] = 1.1854219150394074;
-      distanceFromTo[3][1] = 2.6400831314914046;
-      distanceFromTo[3][5] = 3.9603850053646843;
-      distanceFromTo[3][6] = 4.2284009238396125;
-      distanceFromTo[3][8] = 3.453934890729809;
-      distanceFromTo[3][9] = 3.4480499930985538;
-      distanceFromTo[3][10] = 4.603146042889638;
-
-      distanceFromTo[4][7] = 2.8705173286733583;
-      distanceFromTo[4][8] = 3.270348339390213;
-      distanceFromTo[4][10] = 2.2167807986842525;
-
-      distanceFromTo[5][0] = 4.907218491015141;
-      distanceFromTo[5][1] = 4.921232308870278;
-      distanceFromTo[5][3] = 3.9603850053646843;
-      distanceFromTo[5][6] = 4.412446144735891;
-      distanceFromTo[5][9] = 4.571665408744175;
-
-      distanceFromTo[6][3] = 4.2284009238396125;
-      distanceFromTo[6][5] = 4.412446144735891;
-
-      distanceFromTo[7][0] = 4.640221721305585;
-      distanceFromTo[7][1] = 4.717041635672212;
-      distanceFromTo[7][2] = 3.8125014837397604;
-      distanceFromTo[7][4] = 2.8705173286733583;
-      distanceFromTo[7][8] = 3.351784281672397;
-      distanceFromTo[7][10] = 1.9870721685071835;
-
-      distanceFromTo[8][0] = 2.6596014859808714;
-      distanceFromTo[8][1] = 4.120651436973349;
-      distanceFromTo[8][3] = 3.453934890729809;
-      distanceFromTo[8][4] = 3.270348339390213;
-      distanceFromTo[8][7] = 3.351784281672397;
-      distanceFromTo[8][10] = 1.4754000196183448;
-
-      distanceFromTo[9][0] = 3.080543715187625;
-      distanceFromTo[9][1] = 1.2596981846086392;
-      distanceFromTo[9][2] = 3.7610074859206524;
-      distanceFromTo[9][3] = 3.4480499930985538;
-      distanceFromTo[9][5] = 4.571665408744175;
-
-      distanceFromTo[10][0] = 3.585117510979431;
-      distanceFromTo[10][1] = 4.483110549310852;
-      distanceFromTo[10][2] = 5.097154605916928;
-      distanceFromTo[10][3] = 4.603146042889638;
-      distanceFromTo[10][4] = 2.2167807986842525;
-      distanceFromTo[10][7] = 1.9870721685071835;
-      distanceFromTo[10][8] = 1.4754000196183448;
+      distanceFromTo = new Matrix(numCustomers + 1);
+      distanceFromTo.set(0, 0, 0.0);
+      distanceFromTo.set(0, 1, 1.96468827043885);
+      distanceFromTo.set(0, 2, 5.0643007760336936);
+      distanceFromTo.set(0, 3, 1.1854219150394074);
+      distanceFromTo.set(0, 5, 4.907218491015141);
+      distanceFromTo.set(0, 7, 4.640221721305585);
+      distanceFromTo.set(0, 8, 2.6596014859808714);
+      distanceFromTo.set(0, 9, 3.080543715187625);
+      distanceFromTo.set(0, 10, 3.585117510979431);
+
+      distanceFromTo.set(1, 0, 1.96468827043885);
+      distanceFromTo.set(1, 2, 3.608830236783567);
+      distanceFromTo.set(1, 3, 2.6400831314914046);
+      distanceFromTo.set(1, 5, 4.921232308870278);
+      distanceFromTo.set(1, 7, 4.717041635672212);
+      distanceFromTo.set(1, 8, 4.120651436973349);
+      distanceFromTo.set(1, 9, 1.2596981846086392);
+      distanceFromTo.set(1, 10, 4.483110549310852);
+
+      distanceFromTo.set(2, 0, 5.0643007760336936);
+      distanceFromTo.set(2, 1, 3.608830236783567);
+      distanceFromTo.set(2, 7, 3.8125014837397604);
+      distanceFromTo.set(2, 9, 3.7610074859206524);
+      distanceFromTo.set(2, 10, 5.097154605916928);
+
+      distanceFromTo.set(3, 0, 1.1854219150394074);
+      distanceFromTo.set(3, 1, 2.6400831314914046);
+      distanceFromTo.set(3, 5, 3.9603850053646843);
+      distanceFromTo.set(3, 6, 4.2284009238396125);
+      distanceFromTo.set(3, 8, 3.453934890729809);
+      distanceFromTo.set(3, 9, 3.4480499930985538);
+      distanceFromTo.set(3, 10, 4.603146042889638);
+
+      distanceFromTo.set(4, 7, 2.8705173286733583);
+      distanceFromTo.set(4, 8, 3.270348339390213);
+      distanceFromTo.set(4, 10, 2.2167807986842525);
+
+      distanceFromTo.set(5, 0, 4.907218491015141);
+      distanceFromTo.set(5, 1, 4.921232308870278);
+      distanceFromTo.set(5, 3, 3.9603850053646843);
+      distanceFromTo.set(5, 6, 4.412446144735891);
+      distanceFromTo.set(5, 9, 4.571665408744175);
+
+      distanceFromTo.set(6, 3, 4.2284009238396125);
+      distanceFromTo.set(6, 5, 4.412446144735891);
+
+      distanceFromTo.set(7, 0, 4.640221721305585);
+      distanceFromTo.set(7, 1, 4.717041635672212);
+      distanceFromTo.set(7, 2, 3.8125014837397604);
+      distanceFromTo.set(7, 4, 2.8705173286733583);
+      distanceFromTo.set(7, 8, 3.351784281672397);
+      distanceFromTo.set(7, 10, 1.9870721685071835);
+
+      distanceFromTo.set(8, 0, 2.6596014859808714);
+      distanceFromTo.set(8, 1, 4.120651436973349);
+      distanceFromTo.set(8, 3, 3.453934890729809);
+      distanceFromTo.set(8, 4, 3.270348339390213);
+      distanceFromTo.set(8, 7, 3.351784281672397);
+      distanceFromTo.set(8, 10, 1.4754000196183448);
+
+      distanceFromTo.set(9, 0, 3.080543715187625);
+      distanceFromTo.set(9, 1, 1.2596981846086392);
+      distanceFromTo.set(9, 2, 3.7610074859206524);
+      distanceFromTo.set(9, 3, 3.4480499930985538);
+      distanceFromTo.set(9, 5, 4.571665408744175);
+
+      distanceFromTo.set(10, 0, 3.585117510979431);
+      distanceFromTo.set(10, 1, 4.483110549310852);
+      distanceFromTo.set(10, 2, 5.097154605916928);
+      distanceFromTo.set(10, 3, 4.603146042889638);
+      distanceFromTo.set(10, 4, 2.2167807986842525);
+      distanceFromTo.set(10, 7, 1.9870721685071835);
+      distanceFromTo.set(10, 8, 1.4754000196183448);
+    } else if (instance.endsWith(".bin")) {
+      // Binary instance, see writeBinary(), an instance without customers if it cannot be read
+      if (!readBinary(instance))
+        clear();
     }
 
-    // Generate from parameters
+    if (toursFile != null)
+      readValidTours(toursFile);
+
+    generateFromParameters();
+    metrics.stop();
+  }
+
+  // Instance filled in field by field by the caller, e.g. Generator, which then calls generateFromParameters()
+  Data() {
+    metrics = new Metrics();
+  }
+
+  // Generate from parameters
+  void generateFromParameters() {
     numLocations = numCustomers + 1; // +1 because add the depo
     numSteps = numCustomers + 2; // +2 because depo_start + customers + depo_finish
 
@@ -303,20 +329,155 @@ public class Data {
 
     // Lower bound on the number of vehicles
     lbNumVehicles = (int) Math.ceil(totalDemand / (double) maxCapacity);
+  }
+
+  private void readValidTours(String toursFile) {
+    File file = new File(toursFile);
+    Scanner read = null;
+    try {
+      read = new Scanner(file);
+      if (read.hasNextInt()) {
+        int numValidRoutes = read.nextInt();
+        int tourLength = read.nextInt();
+
+        validTours = new int[numValidRoutes][tourLength];
+        for (int i = 0; i < validTours.length; i++)
+          for (int j = 0; j < validTours[i].length; j++)
+            validTours[i][j] = read.nextInt();
+      } else {
+        // Partial tour table from the best tours recorded so far
+        validTours = TourCheckpoint.readTours(toursFile, numCustomers + 2);
+      }
+    } catch (FileNotFoundException e) {
+      System.out.println("Error: valid tours file not found!");
+    } catch (IOException e) {
+      System.out.println("Error: valid tours file cannot be read!");
+    } finally {
+      if (read != null)
+        read.close();
+    }
+  }
+
+  // Header, demands and tours followed by the distance and time matrices, aligned so that they can be mapped
+  public void writeBinary(String fileName) {
+    int tourLength = validTours.length > 0 ? validTours[0].length : numSteps;
+    int headerSize = headerSize(validTours.length, tourLength);
+    ByteBuffer header = ByteBuffer.allocate(headerSize);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(numVehicles);
+    header.putInt(numCustomers);
+    header.putInt(maxCapacity);
+    header.putInt(validTours.length);
+    header.putInt(tourLength);
+    header.putInt(0); // padding
+    header.putDouble(startTime);
+    header.putDouble(latestDeliveryTime);
+    header.putDouble(costFixed);
+    header.putDouble(costPerMile);
+    header.putDouble(costPerHour);
+    header.putDouble(costLateItem);
+    header.putDouble(costExcessItem);
+    header.putDouble(costMissingItem);
+    for (int c = 0; c < numCustomers; c++)
+      header.putInt(demandOfCustomer[c]);
+    for (int i = 0; i < validTours.length; i++)
+      for (int j = 0; j < tourLength; j++)
+        header.putInt(validTours[i][j]);
+    header.rewind(); // the padding at the end is written as zeros
+
+    try {
+      FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      try {
+        while (header.hasRemaining())
+          channel.write(header);
+        distanceFromTo.write(channel);
+        timeFromTo.write(channel);
+      } finally {
+        channel.close();
+      }
+    } catch (IOException e) {
+      System.out.println("Error: instance file cannot be written!");
+    }
+  }
+
+  // Only the header is read, the matrices are mapped and paged in from the file when they are accessed
+  // Returns false if the file cannot be read
+  private boolean readBinary(String fileName) {
+    try {
+      FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+      try {
+        if (channel.size() < HEADER_SIZE) {
+          System.out.println("Error: not a binary instance file!");
+          return false;
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+          System.out.println("Error: not a binary instance file!");
+          return false;
+        }
+        if (header.getInt() != VERSION) {
+          System.out.println("Error: binary instance file of another version!");
+          return false;
+        }
+        numVehicles = header.getInt();
+        numCustomers = header.getInt();
+        maxCapacity = header.getInt();
+        int numValidRoutes = header.getInt();
+        int tourLength = header.getInt();
+        header.getInt(); // padding
+        startTime = header.getDouble();
+        latestDeliveryTime = header.getDouble();
+        costFixed = header.getDouble();
+        costPerMile = header.getDouble();
+        costPerHour = header.getDouble();
+        costLateItem = header.getDouble();
+        costExcessItem = header.getDouble();
+        costMissingItem = header.getDouble();
+
+        int headerSize = headerSize(numValidRoutes, tourLength);
+        int size = numCustomers + 1;
+        if (channel.size() < headerSize + 2 * 8L * size * size) {
+          System.out.println("Error: binary instance file is truncated!");
+          return false;
+        }
+        ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, headerSize - HEADER_SIZE);
+        demandOfCustomer = new int[numCustomers];
+        for (int c = 0; c < numCustomers; c++)
+          demandOfCustomer[c] = body.getInt();
+        validTours = new int[numValidRoutes][tourLength];
+        for (int i = 0; i < numValidRoutes; i++)
+          for (int j = 0; j < tourLength; j++)
+            validTours[i][j] = body.getInt();
+
+        // the mappings stay valid after the channel is closed
+        distanceFromTo = Matrix.map(channel, headerSize, size);
+        timeFromTo = Matrix.map(channel, headerSize + 8L * size * size, size);
+      } finally {
+        channel.close();
+      }
+    } catch (IOException e) {
+      System.out.println("Error: instance file cannot be read!");
+      return false;
+    }
+    return true;
+  }
+
+  // No customers, no vehicles and no tours, for an instance that cannot be read
+  private void clear() {
+    numVehicles = 0;
+    numCustomers = 0;
+    maxCapacity = 1;
+    demandOfCustomer = new int[0];
+    validTours = new int[0][];
+    distanceFromTo = new Matrix(1);
+    timeFromTo = new Matrix(1);
+  }
 
-    // Flatten distances to use for element array indexing when calculating distance cost
-    int index = 0;
-    flatDistances = new double[numLocations * numLocations];
-    for (int i = 0; i < numLocations; i++)
-      for (int j = 0; j < numLocations; j++)
-        flatDistances[index++] = distanceFromTo[i][j];
-
-    // Flatten distances to use for element array indexing when calculating time cost
-    index = 0;
-    flatTimes = new double[numLocations * numLocations];
-    for (int i = 0; i < numLocations; i++)
-      for (int j = 0; j < numLocations; j++)
-        flatTimes[index++] = timeFromTo[i][j];
+  // Size of everything before the matrices, rounded up to a multiple of 8
+  private int headerSize(int numValidRoutes, int tourLength) {
+    int size = HEADER_SIZE + 4 * numCustomers + 4 * numValidRoutes * tourLength;
+    return (size + 7) / 8 * 8;
   }
 
   public String toString() {
@@ -327,7 +488,7 @@ public class Data {
     buf.append("demandOfCustomer: " + Arrays.toString(demandOfCustomer) + "\n");
     buf.append("totalDemand: " + totalDemand + "\n");
     buf.append("lbNumVehicles: " + lbNumVehicles + "\n");
-    buf.append("flatDistances: " + Arrays.toString(flatDistances) + "\n");
+    buf.append("distanceFromTo: " + distanceFromTo + "\n");
     return buf.toString();
   }
 }
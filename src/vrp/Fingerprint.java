@@ -0,0 +1,137 @@
+package vrp;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Hash of the contents of an instance, the same for instances that differ only by how customers are numbered
+// Customers are put in a canonical order by label-free signatures, then the instance is hashed in that order
+// Customers with equal signatures may be ordered differently in two relabelled instances, which only costs a miss
+public class Fingerprint {
+  public final String key; // hex SHA-256 of the canonical instance
+  final int[] canonicalOf; // [numLocations] canonical number of each location, the depo stays 0
+  final int[] locationOf; // [numLocations] location of each canonical number
+  int[][] canonicalTours; // the tour table renumbered and sorted by TOUR_ORDER, for binary search
+
+  // Lexicographic order of tours
+  static final Comparator<int[]> TOUR_ORDER = new Comparator<int[]>() {
+    public int compare(int[] a, int[] b) {
+      for (int s = 0; s < Math.min(a.length, b.length); s++)
+        if (a[s] != b[s])
+          return Integer.compare(a[s], b[s]);
+      return Integer.compare(a.length, b.length);
+    }
+  };
+
+  // The fingerprint of an instance, computed once and kept with it, the instance must not change afterwards
+  // Hashing reads and sorts the whole tour table, repeated cache lookups on the same instance skip that
+  public static Fingerprint of(Data data) {
+    if (data.fingerprint == null)
+      data.fingerprint = new Fingerprint(data);
+    return data.fingerprint;
+  }
+
+  public Fingerprint(Data data) {
+    int n = data.numLocations;
+    final long[][] signature = new long[n][];
+    for (int c = 1; c < n; c++)
+      signature[c] = signatureOf(data, c);
+
+    Integer[] order = new Integer[n - 1];
+    for (int c = 1; c < n; c++)
+      order[c - 1] = c;
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        for (int i = 0; i < signature[a].length; i++)
+          if (signature[a][i] != signature[b][i])
+            return Long.compare(signature[a][i], signature[b][i]);
+        return 0;
+      }
+    });
+
+    locationOf = new int[n];
+    canonicalOf = new int[n];
+    for (int i = 1; i < n; i++) {
+      locationOf[i] = order[i - 1];
+      canonicalOf[order[i - 1]] = i;
+    }
+    key = hash(data);
+  }
+
+  // Everything about customer c that does not depend on the numbering of the other customers
+  // The rows and columns are summed as raw bits, which is exact and independent of the order
+  private static long[] signatureOf(Data data, int c) {
+    long rowDistances = 0, columnDistances = 0, rowTimes = 0, columnTimes = 0;
+    for (int l = 1; l < data.numLocations; l++) {
+      rowDistances += Double.doubleToLongBits(data.distanceFromTo.get(c, l));
+      columnDistances += Double.doubleToLongBits(data.distanceFromTo.get(l, c));
+      rowTimes += Double.doubleToLongBits(data.timeFromTo.get(c, l));
+      columnTimes += Double.doubleToLongBits(data.timeFromTo.get(l, c));
+    }
+    return new long[] { data.demandOfCustomer[c - 1], Double.doubleToLongBits(data.distanceFromTo.get(0, c)),
+        Double.doubleToLongBits(data.distanceFromTo.get(c, 0)), Double.doubleToLongBits(data.timeFromTo.get(0, c)),
+        Double.doubleToLongBits(data.timeFromTo.get(c, 0)), rowDistances, columnDistances, rowTimes, columnTimes };
+  }
+
+  private String hash(Data data) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM has SHA-256
+    }
+    int n = data.numLocations;
+    ByteBuffer buffer = ByteBuffer.allocate(8 * Math.max(16, n));
+
+    buffer.putInt(data.numVehicles).putInt(data.numCustomers).putInt(data.maxCapacity);
+    buffer.putDouble(data.startTime).putDouble(data.latestDeliveryTime).putDouble(data.costFixed).putDouble(data.costPerMile);
+    buffer.putDouble(data.costPerHour).putDouble(data.costLateItem).putDouble(data.costExcessItem).putDouble(data.costMissingItem);
+    update(digest, buffer);
+
+    for (int i = 1; i < n; i++)
+      buffer.putInt(data.demandOfCustomer[locationOf[i] - 1]);
+    update(digest, buffer);
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++)
+        buffer.putDouble(data.distanceFromTo.get(locationOf[i], locationOf[j]));
+      update(digest, buffer);
+    }
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++)
+        buffer.putDouble(data.timeFromTo.get(locationOf[i], locationOf[j]));
+      update(digest, buffer);
+    }
+
+    // The tour table as a set: renumbered tours in lexicographic order
+    int[][] tours = new int[data.validTours.length][];
+    for (int t = 0; t < tours.length; t++) {
+      tours[t] = new int[data.validTours[t].length];
+      for (int s = 0; s < tours[t].length; s++)
+        tours[t][s] = canonicalOf[data.validTours[t][s]];
+    }
+    Arrays.sort(tours, TOUR_ORDER);
+    canonicalTours = tours;
+    buffer.putInt(tours.length);
+    update(digest, buffer);
+    ByteBuffer tourBuffer = ByteBuffer.allocate(4 * data.numSteps);
+    for (int t = 0; t < tours.length; t++) {
+      for (int s = 0; s < tours[t].length; s++)
+        tourBuffer.putInt(tours[t][s]);
+      update(digest, tourBuffer);
+    }
+
+    StringBuffer hex = new StringBuffer();
+    for (byte b : digest.digest())
+      hex.append(String.format("%02x", b));
+    return hex.toString();
+  }
+
+  private static void update(MessageDigest digest, ByteBuffer buffer) {
+    buffer.flip();
+    digest.update(buffer);
+    buffer.clear();
+  }
+}
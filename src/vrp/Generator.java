@@ -0,0 +1,185 @@
+package vrp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+// Seeded generator of synthetic instances in the style of "mopta", for benchmarks and scaling curves
+// The same seed and parameters always give the same instance
+// Every instance is feasible: the tour table contains a cover of the customers that needs only part of the fleet
+public class Generator {
+  public static final double AREA = 10.0; // customers are placed in a AREA x AREA square of miles around the depo
+  public static final double MINUTES_PER_MILE = 5.4; // average speed as in "mopta"
+  public static final int MEAN_DEMAND = 150;
+  public static final int MAX_STOPS = 4; // the longest random tour generated, in customers
+  public static final double FLEET_SLACK = 0.2; // part of the fleet, at least one vehicle, not needed by the cover
+
+  // density: probability that two customers are connected, the depo is connected to every customer
+  // demandSpread: demands are drawn uniformly from MEAN_DEMAND * [1 - spread, 1 + spread], 0..1
+  // numVehicles: the fleet, the capacity is set so that the cover fits and the fleet can carry the total demand with 25% slack
+  // toursPerCustomer: random tours starting at each customer added to the tour table, on top of the single customer tours
+  public static Data generate(long seed, int numCustomers, double density, double demandSpread, int numVehicles, int toursPerCustomer) {
+    Random random = new Random(seed);
+    Data data = new Data();
+    data.metrics.start("data");
+
+    data.numVehicles = numVehicles;
+    data.numCustomers = numCustomers;
+    data.startTime = 300; // day starts at 5:00am
+    data.latestDeliveryTime = 481; // deliver by 8:00 am
+
+    // Penalty, same as "mopta"
+    data.costFixed = 300;
+    data.costPerMile = 2;
+    data.costPerHour = 15;
+    data.costLateItem = 10;
+    data.costExcessItem = 0.5;
+    data.costMissingItem = 1.0;
+
+    // Demand
+    data.demandOfCustomer = new int[numCustomers];
+    int totalDemand = 0;
+    for (int c = 0; c < numCustomers; c++) {
+      double factor = 1 + demandSpread * (2 * random.nextDouble() - 1);
+      data.demandOfCustomer[c] = Math.max(1, (int) Math.round(MEAN_DEMAND * factor));
+      totalDemand += data.demandOfCustomer[c];
+    }
+
+    // Locations, the depo is in the middle
+    int numLocations = numCustomers + 1;
+    double[] x = new double[numLocations];
+    double[] y = new double[numLocations];
+    x[0] = AREA / 2;
+    y[0] = AREA / 2;
+    for (int l = 1; l < numLocations; l++) {
+      x[l] = AREA * random.nextDouble();
+      y[l] = AREA * random.nextDouble();
+    }
+
+    // Edges, a zero distance means there is no edge
+    boolean[][] isEdge = new boolean[numLocations][numLocations];
+    for (int i = 0; i < numLocations; i++) {
+      for (int j = i + 1; j < numLocations; j++) {
+        boolean edge = i == 0 || random.nextDouble() < density;
+        isEdge[i][j] = edge;
+        isEdge[j][i] = edge;
+      }
+    }
+
+    // Cover: customers swept by angle around the depo, split into consecutive groups, one tour per group
+    // The edges along each group are added to the graph, and the capacity is set so that every group fits
+    int numCoverTours = Math.min(numCustomers, Math.max(1, numVehicles - Math.max(1, (int) (FLEET_SLACK * numVehicles))));
+    int[][] coverTours = coverTours(data, x, y, numCoverTours);
+    int maxTourDemand = 0;
+    for (int[] tour : coverTours) {
+      int tourDemand = 0;
+      for (int s = 1; tour[s] != 0; s++) {
+        tourDemand += data.demandOfCustomer[tour[s] - 1];
+        isEdge[tour[s - 1]][tour[s]] = true;
+        isEdge[tour[s]][tour[s - 1]] = true;
+      }
+      maxTourDemand = Math.max(maxTourDemand, tourDemand);
+    }
+    data.maxCapacity = Math.max(maxTourDemand, (int) Math.ceil(1.25 * totalDemand / numVehicles));
+
+    data.distanceFromTo = new Matrix(numLocations);
+    data.timeFromTo = new Matrix(numLocations);
+    data.neighborsOfLocation = new int[numLocations][];
+    for (int i = 0; i < numLocations; i++) {
+      int numNeighbors = 0;
+      for (int j = 0; j < numLocations; j++) {
+        if (!isEdge[i][j])
+          continue;
+        // at least a tenth of a mile so that no edge looks like a missing one
+        double miles = Math.max(0.1, Math.hypot(x[i] - x[j], y[i] - y[j]));
+        data.distanceFromTo.set(i, j, miles);
+        data.timeFromTo.set(i, j, miles * MINUTES_PER_MILE);
+        numNeighbors++;
+      }
+      data.neighborsOfLocation[i] = new int[numNeighbors];
+      numNeighbors = 0;
+      for (int j = 0; j < numLocations; j++)
+        if (isEdge[i][j])
+          data.neighborsOfLocation[i][numNeighbors++] = j;
+    }
+
+    data.validTours = generateTours(random, data, isEdge, toursPerCustomer, coverTours);
+    data.generateFromParameters();
+    data.metrics.stop();
+    return data;
+  }
+
+  // numCoverTours tours of consecutive customers by angle around the depo, together they visit every customer once
+  private static int[][] coverTours(Data data, final double[] x, final double[] y, int numCoverTours) {
+    int numSteps = data.numCustomers + 2;
+    Integer[] order = new Integer[data.numCustomers];
+    for (int c = 1; c <= data.numCustomers; c++)
+      order[c - 1] = c;
+    Arrays.sort(order, (a, b) -> Double.compare(Math.atan2(y[a] - y[0], x[a] - x[0]), Math.atan2(y[b] - y[0], x[b] - x[0])));
+
+    int[][] tours = new int[numCoverTours][numSteps];
+    for (int t = 0; t < numCoverTours; t++) {
+      int first = t * data.numCustomers / numCoverTours;
+      int last = (t + 1) * data.numCustomers / numCoverTours;
+      for (int i = first; i < last; i++)
+        tours[t][1 + i - first] = order[i];
+    }
+    return tours;
+  }
+
+  // The empty tour, every single customer tour, the cover, and random walks over the edges of up to MAX_STOPS customers
+  private static int[][] generateTours(Random random, Data data, boolean[][] isEdge, int toursPerCustomer, int[][] coverTours) {
+    int numSteps = data.numCustomers + 2;
+    ArrayList<int[]> tours = new ArrayList<int[]>();
+    HashSet<String> isGenerated = new HashSet<String>(); // the same walk can be drawn twice
+    tours.add(new int[numSteps]);
+    for (int c = 1; c <= data.numCustomers; c++) {
+      int[] tour = new int[numSteps];
+      tour[1] = c;
+      isGenerated.add(Arrays.toString(tour));
+      tours.add(tour);
+    }
+    for (int[] tour : coverTours)
+      if (isGenerated.add(Arrays.toString(tour)))
+        tours.add(tour);
+
+    for (int c = 1; c <= data.numCustomers; c++) {
+      for (int t = 0; t < toursPerCustomer; t++) {
+        int[] tour = new int[numSteps];
+        boolean[] isVisited = new boolean[data.numCustomers + 1];
+        tour[1] = c;
+        isVisited[c] = true;
+        int numStops = 1;
+        int maxStops = Math.min(2 + random.nextInt(MAX_STOPS - 1), data.numCustomers);
+        while (numStops < maxStops) {
+          int next = randomUnvisitedNeighbor(random, isEdge, isVisited, tour[numStops]);
+          if (next < 0)
+            break;
+          numStops++;
+          tour[numStops] = next;
+          isVisited[next] = true;
+        }
+        // every customer is connected to the depo, so the tour can always go back
+        if (numStops > 1 && isGenerated.add(Arrays.toString(tour)))
+          tours.add(tour);
+      }
+    }
+    return tours.toArray(new int[tours.size()][]);
+  }
+
+  private static int randomUnvisitedNeighbor(Random random, boolean[][] isEdge, boolean[] isVisited, int from) {
+    int numCandidates = 0;
+    for (int to = 1; to < isVisited.length; to++)
+      if (isEdge[from][to] && !isVisited[to])
+        numCandidates++;
+    if (numCandidates == 0)
+      return -1;
+
+    int pick = random.nextInt(numCandidates);
+    for (int to = 1; to < isVisited.length; to++)
+      if (isEdge[from][to] && !isVisited[to] && pick-- == 0)
+        return to;
+    return -1;
+  }
+}
@@ -0,0 +1,93 @@
+package vrp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+// Square matrix of doubles in a single contiguous row-major block, entry (i, j) is at i * size + j
+// Stored on the heap, or mapped from a file and paged in lazily for very large instances
+public class Matrix {
+  public final int size;
+  private final double[] values; // heap storage, null if mapped
+  private final DoubleBuffer buffer; // mapped storage, null if on the heap
+  private double[] heapCopy; // the entries of a mapped matrix once array() has been called, shared by every caller
+
+  // Heap matrix of zeros
+  public Matrix(int _size) {
+    size = _size;
+    values = new double[size * size];
+    buffer = null;
+  }
+
+  private Matrix(int _size, DoubleBuffer _buffer) {
+    size = _size;
+    values = null;
+    buffer = _buffer;
+  }
+
+  // Read-only matrix mapped from a file at the given offset, nothing is read until it is accessed
+  public static Matrix map(FileChannel channel, long offset, int size) throws IOException {
+    return new Matrix(size, channel.map(FileChannel.MapMode.READ_ONLY, offset, 8L * size * size).asDoubleBuffer());
+  }
+
+  public double get(int i, int j) {
+    if (values != null)
+      return values[i * size + j];
+    return buffer.get(i * size + j);
+  }
+
+  public void set(int i, int j, double value) {
+    if (values != null)
+      values[i * size + j] = value;
+    else
+      buffer.put(i * size + j, value);
+  }
+
+  // The row-major entries, e.g. for element constraints, must not be modified, use copyArray() instead
+  // On the heap this is the storage itself, a mapped matrix is copied to the heap on the first call only
+  public double[] array() {
+    if (values != null)
+      return values;
+    if (heapCopy == null)
+      heapCopy = copyArray();
+    return heapCopy;
+  }
+
+  public double[] copyArray() {
+    if (values != null)
+      return values.clone();
+    double[] copy = new double[size * size];
+    DoubleBuffer source = buffer.duplicate();
+    source.rewind();
+    source.get(copy);
+    return copy;
+  }
+
+  // Write the row-major entries at the current position of the channel
+  public void write(FileChannel channel) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+    for (int k = 0; k < size * size; k++) {
+      if (bytes.remaining() < 8) {
+        bytes.flip();
+        while (bytes.hasRemaining())
+          channel.write(bytes);
+        bytes.clear();
+      }
+      bytes.putDouble(values != null ? values[k] : buffer.get(k));
+    }
+    bytes.flip();
+    while (bytes.hasRemaining())
+      channel.write(bytes);
+  }
+
+  public String toString() {
+    StringBuffer buf = new StringBuffer("[");
+    for (int k = 0; k < size * size; k++) {
+      if (k > 0)
+        buf.append(", ");
+      buf.append(values != null ? values[k] : buffer.get(k));
+    }
+    return buf.append("]").toString();
+  }
+}
@@ -0,0 +1,171 @@
+package vrp;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+// Wall time and allocation of each phase from reading the data to the end of search, and solver statistics
+// Phases run one at a time on the calling thread, starting a phase stops the current one
+// Solver statistics and the solution timeline are of the last search only, phases add up until reset()
+public class Metrics {
+  // Finished phases, in the order they ran
+  ArrayList<String> phaseNames = new ArrayList<String>();
+  ArrayList<Double> phaseSeconds = new ArrayList<Double>();
+  ArrayList<Long> phaseBytes = new ArrayList<Long>(); // -1 if the JVM does not measure allocation
+
+  // Whether anything is recorded, off for benchmarks so that measuring does not add to what is measured
+  boolean isEnabled = true;
+
+  // The running phase, null if none
+  String currentPhase;
+  Timer timer = new Timer();
+  long startBytes;
+
+  // Solver statistics of the last search
+  public long numBranches;
+  public long numFails;
+  public long numChoicePoints;
+  public long numSolutions;
+  public double extractionSeconds; // part of the search spent extracting the model into the solver
+  ArrayList<Double> solutionSeconds = new ArrayList<Double>(); // time since the search started
+  ArrayList<Double> solutionObjectives = new ArrayList<Double>();
+
+  public void setEnabled(boolean _isEnabled) {
+    stop();
+    isEnabled = _isEnabled;
+  }
+
+  // Forget everything recorded so far, for long-lived data solved many times
+  public void reset() {
+    currentPhase = null;
+    phaseNames.clear();
+    phaseSeconds.clear();
+    phaseBytes.clear();
+    resetSearch();
+  }
+
+  private void resetSearch() {
+    solutionSeconds.clear();
+    solutionObjectives.clear();
+    numBranches = 0;
+    numFails = 0;
+    numChoicePoints = 0;
+    numSolutions = 0;
+    extractionSeconds = 0;
+  }
+
+  public void start(String phase) {
+    if (!isEnabled)
+      return;
+    stop();
+    currentPhase = phase;
+    startBytes = allocatedBytes();
+    timer.start();
+  }
+
+  // Start the phase of a search, forgetting the statistics and solutions of the previous search
+  public void startSearch(String phase) {
+    if (!isEnabled)
+      return;
+    resetSearch();
+    start(phase);
+  }
+
+  public void stop() {
+    if (currentPhase == null)
+      return;
+    timer.stop();
+    long bytes = allocatedBytes();
+    phaseNames.add(currentPhase);
+    phaseSeconds.add(timer.getTime());
+    phaseBytes.add(bytes < 0 ? -1 : bytes - startBytes);
+    currentPhase = null;
+  }
+
+  // Record a solution found in the running phase, improving solutions in case of optimization
+  public void recordSolution(double objective) {
+    if (currentPhase == null)
+      return;
+    solutionSeconds.add(timer.getTime());
+    solutionObjectives.add(objective);
+  }
+
+  // Seconds spent in a phase, summed over its runs
+  public double getTime(String phase) {
+    double seconds = 0;
+    for (int i = 0; i < phaseNames.size(); i++)
+      if (phaseNames.get(i).equals(phase))
+        seconds += phaseSeconds.get(i);
+    return seconds;
+  }
+
+  public double getTotalTime() {
+    double seconds = 0;
+    for (int i = 0; i < phaseSeconds.size(); i++)
+      seconds += phaseSeconds.get(i);
+    return seconds;
+  }
+
+  // Bytes allocated so far by this thread, -1 if not supported
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean))
+      return -1;
+    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+    if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled())
+      return -1;
+    return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  public String toJson() {
+    StringBuffer buf = new StringBuffer();
+    buf.append("{\"phases\":[");
+    for (int i = 0; i < phaseNames.size(); i++) {
+      if (i > 0)
+        buf.append(",");
+      buf.append("{\"name\":\"" + phaseNames.get(i) + "\",\"seconds\":" + phaseSeconds.get(i) + ",\"allocatedBytes\":" + phaseBytes.get(i) + "}");
+    }
+    buf.append("],\"totalSeconds\":" + getTotalTime());
+    buf.append(",\"solver\":{\"branches\":" + numBranches + ",\"fails\":" + numFails + ",\"choicePoints\":" + numChoicePoints + ",\"solutions\":"
+        + numSolutions + ",\"extractionSeconds\":" + extractionSeconds + "}");
+    buf.append(",\"solutions\":[");
+    for (int i = 0; i < solutionSeconds.size(); i++) {
+      if (i > 0)
+        buf.append(",");
+      buf.append("{\"seconds\":" + solutionSeconds.get(i) + ",\"objective\":" + solutionObjectives.get(i) + "}");
+    }
+    buf.append("]}");
+    return buf.toString();
+  }
+
+  public void writeJson(String fileName) {
+    try {
+      FileWriter out = new FileWriter(fileName);
+      try {
+        out.write(toJson());
+        out.write("\n");
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      System.out.println("Error: metrics file cannot be written!");
+    }
+  }
+
+  public String toString() {
+    StringBuffer buf = new StringBuffer();
+    for (int i = 0; i < phaseNames.size(); i++) {
+      buf.append(phaseNames.get(i) + ": " + String.format("%.3f", phaseSeconds.get(i)) + "s");
+      if (phaseBytes.get(i) >= 0)
+        buf.append(" " + (phaseBytes.get(i) / 1024) + "KB");
+      buf.append("\n");
+    }
+    buf.append("total: " + String.format("%.3f", getTotalTime()) + "s\n");
+    buf.append("branches: " + numBranches + " fails: " + numFails + " choicePoints: " + numChoicePoints + " solutions: " + numSolutions + " extraction: "
+        + String.format("%.3f", extractionSeconds) + "s\n");
+    for (int i = 0; i < solutionSeconds.size(); i++)
+      buf.append("solution @" + String.format("%.3f", solutionSeconds.get(i)) + "s: " + String.format("%.2f", solutionObjectives.get(i)) + "\n");
+    return buf.toString();
+  }
+}
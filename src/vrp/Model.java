@@ -3,6 +3,8 @@ package vrp;
 import ilog.cp.*;
 import ilog.concert.*;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 
@@ -41,20 +43,51 @@ public class Model {
   HashMap<HashSet<Integer>, Double> coveredToCost; // covered set of locations to route cost
   HashMap<HashSet<Integer>, String> coveredToRoute; // covered set of locations to route string
 
+  // Phase times and solver statistics, shared with the data
+  Metrics metrics;
+
+  // Whether the objective is optimized or the model is just satisfied
+  boolean isOptimize;
+
+  // Upper bound of every cost variable
+  double maxCost;
+
+  // Robust planning over travel time scenarios, null to plan with the point estimates of timeFromTo
+  Scenarios scenarios;
+  IloIntVar[] tourOfVehicle; // [numVehicles] the index of the valid tour of each vehicle, only when robust
+  IloNumVar costRobust; // expected or CVaR cost of late deliveries + hourly usage over the scenarios, only when robust
+  double costRobustOfSolution = Double.NaN; // its value in the last solution found, NaN if none or not robust
+
+  // Whether solutions are printed to the console
+  boolean isPrint = true;
+
+  // Periodic checkpoint of the valid tour generation, null if not checkpointing
+  TourCheckpoint checkpoint;
+
   // objective: (-) minimize, (0) satisfy, (+) fix the number of used vehicles
   public Model(Data _data, boolean isSymBreak, int objective) throws IloException {
+    this(_data, isSymBreak, objective, null);
+  }
+
+  // Robust version: late deliveries and hourly usage are costed over the travel time scenarios, and this cost is minimized
+  // objective: (-) minimize, (0) satisfy, (+) fix the number of used vehicles and minimize
+  public Model(Data _data, boolean isSymBreak, int objective, Scenarios _scenarios) throws IloException {
     cp = new IloCP();
     data = _data;
+    scenarios = _scenarios;
+    metrics = data.metrics;
+    metrics.start("model.variables");
 
     // Variable - I: Cost variables
-    costDrivingTotal = cp.numVar(0, 10000);
-    costDrivingVehicle = cp.numVarArray(data.numVehicles, 0, 10000);
-    costLateTotal = cp.numVar(0, 10000);
-    costLateVehicle = cp.numVarArray(data.numVehicles, 0, 10000);
-    costHourlyTotal = cp.numVar(0, 10000);
-    costHourlyVehicle = cp.numVarArray(data.numVehicles, 0, 10000);
-    costFixedTotal = cp.numVar(0, 10000);
-    costTotal = cp.numVar(0, 10000);
+    maxCost = maxCost();
+    costDrivingTotal = cp.numVar(0, maxCost);
+    costDrivingVehicle = cp.numVarArray(data.numVehicles, 0, maxCost);
+    costLateTotal = cp.numVar(0, maxCost);
+    costLateVehicle = cp.numVarArray(data.numVehicles, 0, maxCost);
+    costHourlyTotal = cp.numVar(0, maxCost);
+    costHourlyVehicle = cp.numVarArray(data.numVehicles, 0, maxCost);
+    costFixedTotal = cp.numVar(0, maxCost);
+    costTotal = cp.numVar(0, maxCost);
 
     // Variables - II: the visit of each vehicle at each step
     visitVehicleStep = new IloIntVar[data.numVehicles][data.numSteps];
@@ -91,6 +124,8 @@ public class Model {
     // Variables - V: The number of vehicles used
     numUsedVehicles = cp.intVar(data.lbNumVehicles, data.numVehicles);
 
+    metrics.start("model.constraints");
+
     // Constraint - I: Vehicle is used and carries load if it leaves depo
     isUsedVehicle = new IloIntExpr[data.numVehicles];
     for (int v = 0; v < data.numVehicles; v++) {
@@ -134,13 +169,35 @@ public class Model {
       }
     }
 
+    metrics.start("model.tuples");
+
     // Constraint - V: Routes should be valid tours (Table Constraint)
-    IloIntTupleSet tours = cp.intTable(data.numSteps);
-    for (int i = 0; i < data.validTours.length; i++)
-      cp.addTuple(tours, data.validTours[i]);
+    if (scenarios == null) {
+      IloIntTupleSet tours = cp.intTable(data.numSteps);
+      for (int i = 0; i < data.validTours.length; i++)
+        cp.addTuple(tours, data.validTours[i]);
 
-    for (int v = 0; v < data.numVehicles; v++)
-      cp.add(cp.allowedAssignments(visitVehicleStep[v], tours));
+      for (int v = 0; v < data.numVehicles; v++)
+        cp.add(cp.allowedAssignments(visitVehicleStep[v], tours));
+    } else {
+      // The index of the tour is the last column, to look up the scenario tables of the tour
+      IloIntTupleSet tours = cp.intTable(data.numSteps + 1);
+      for (int i = 0; i < data.validTours.length; i++) {
+        int[] tuple = Arrays.copyOf(data.validTours[i], data.numSteps + 1);
+        tuple[data.numSteps] = i;
+        cp.addTuple(tours, tuple);
+      }
+
+      tourOfVehicle = new IloIntVar[data.numVehicles];
+      for (int v = 0; v < data.numVehicles; v++) {
+        tourOfVehicle[v] = cp.intVar(0, data.validTours.length - 1);
+        IloIntVar[] visitsAndTour = Arrays.copyOf(visitVehicleStep[v], data.numSteps + 1);
+        visitsAndTour[data.numSteps] = tourOfVehicle[v];
+        cp.add(cp.allowedAssignments(visitsAndTour, tours));
+      }
+    }
+
+    metrics.start("model.demand");
 
     // Constraint - VI: Amount dropped at each customer should match the demand
     dropOffCustomer = new IloIntExpr[data.numCustomers];
@@ -170,7 +227,11 @@ public class Model {
       for (int v = 0; v < data.numVehicles - 1; v++)
         cp.add(cp.ge(visitVehicleStep[v][1], visitVehicleStep[v + 1][1]));
 
+    metrics.start("model.costs");
+
     // Constraint - VIII: Link the route to miles and driving time
+    double[] distances = data.distanceFromTo.array();
+    double[] times = data.timeFromTo.array();
     for (int v = 0; v < data.numVehicles; v++) {
       IloNumExpr[] mileOfVisit = new IloNumExpr[data.numSteps - 1];
       for (int s = 0; s < data.numSteps - 1; s++) // for each edge/visit
@@ -178,35 +239,76 @@ public class Model {
         IloIntExpr from = visitVehicleStep[v][s];
         IloIntExpr to = visitVehicleStep[v][s + 1];
         IloIntExpr flatIndex = cp.sum(cp.prod(from, data.numLocations), to);
-        mileOfVisit[s] = cp.element(data.flatDistances, flatIndex);
+        mileOfVisit[s] = cp.element(distances, flatIndex);
 
         // time of this visit = time at previous stop + time it takes to get here
-        IloNumExpr timeOfVisit = (s == 0) ? cp.sum(data.startTime, cp.element(data.flatTimes, flatIndex)) : cp.sum(timeVehicleStep[v][s - 1], cp.element(data.flatTimes, flatIndex));
+        IloNumExpr timeOfVisit = (s == 0) ? cp.sum(data.startTime, cp.element(times, flatIndex)) : cp.sum(timeVehicleStep[v][s - 1], cp.element(times, flatIndex));
         cp.add(cp.eq(timeVehicleStep[v][s], timeOfVisit));
       }
       cp.add(cp.eq(costDrivingVehicle[v], cp.prod(data.costPerMile, cp.sum(mileOfVisit))));
     }
     cp.add(cp.eq(costDrivingTotal, cp.sum(costDrivingVehicle)));
 
-    // Constraint - X: Cost hourly
-    for (int v = 0; v < data.numVehicles; v++) {
-      // (lastTime - firstTime)/60.0 * hourlyCoust
-      IloNumExpr hoursUsed = cp.quot(cp.diff(timeVehicleStep[v][data.numSteps - 2], data.startTime), 60);
-      cp.add(cp.eq(costHourlyVehicle[v], cp.prod(data.costPerHour, hoursUsed)));
-    }
-    cp.add(cp.eq(costHourlyTotal, cp.sum(costHourlyVehicle)));
+    if (scenarios == null) {
+      // Constraint - X: Cost hourly
+      for (int v = 0; v < data.numVehicles; v++) {
+        // (lastTime - firstTime)/60.0 * hourlyCoust
+        IloNumExpr hoursUsed = cp.quot(cp.diff(timeVehicleStep[v][data.numSteps - 2], data.startTime), 60);
+        cp.add(cp.eq(costHourlyVehicle[v], cp.prod(data.costPerHour, hoursUsed)));
+      }
+      cp.add(cp.eq(costHourlyTotal, cp.sum(costHourlyVehicle)));
 
-    // Constraint - XI: Cost of late deliveries
-    for (int v = 0; v < data.numVehicles; v++) {
-      IloNumExpr[] costOfLateVisit = new IloNumExpr[data.numSteps - 2]; // skip the visit back to depo
-      for (int s = 0; s < data.numSteps - 2; s++) // for each edge/visit
-      {
-        IloConstraint isLate = cp.ge(timeVehicleStep[v][s], data.latestDeliveryTime);
-        costOfLateVisit[s] = cp.prod(isLate, loadDiffVehicleStep[v][s]); // pay the price for every unit dropped late
+      // Constraint - XI: Cost of late deliveries
+      for (int v = 0; v < data.numVehicles; v++) {
+        IloNumExpr[] costOfLateVisit = new IloNumExpr[data.numSteps - 2]; // skip the visit back to depo
+        for (int s = 0; s < data.numSteps - 2; s++) // for each edge/visit
+        {
+          IloConstraint isLate = cp.ge(timeVehicleStep[v][s], data.latestDeliveryTime);
+          costOfLateVisit[s] = cp.prod(isLate, loadDiffVehicleStep[v][s]); // pay the price for every unit dropped late
+        }
+        cp.add(cp.eq(costLateVehicle[v], cp.prod(data.costLateItem, cp.sum(costOfLateVisit))));
+      }
+      cp.add(cp.eq(costLateTotal, cp.sum(costLateVehicle)));
+    } else {
+      // Constraint - X: Expected cost hourly, from the scenario table of each tour
+      for (int v = 0; v < data.numVehicles; v++)
+        cp.add(cp.eq(costHourlyVehicle[v], cp.element(scenarios.costHourlyExpected, tourOfVehicle[v])));
+      cp.add(cp.eq(costHourlyTotal, cp.sum(costHourlyVehicle)));
+
+      // Constraint - XI: Expected cost of late deliveries, every unit dropped is late with the probability of its visit
+      for (int v = 0; v < data.numVehicles; v++) {
+        IloNumExpr[] costOfLateVisit = new IloNumExpr[data.numSteps - 2]; // skip the visit back to depo
+        for (int s = 0; s < data.numSteps - 2; s++)
+          costOfLateVisit[s] = cp.prod(cp.element(scenarios.lateProbability[s], tourOfVehicle[v]), loadDiffVehicleStep[v][s]);
+        cp.add(cp.eq(costLateVehicle[v], cp.prod(data.costLateItem, cp.sum(costOfLateVisit))));
+      }
+      cp.add(cp.eq(costLateTotal, cp.sum(costLateVehicle)));
+
+      // Constraint - XIV: Robust cost, the expectation or the CVaR at level alpha
+      double maxCostRobust = scenarios.maxCost(data);
+      costRobust = cp.numVar(0, maxCostRobust);
+      if (!scenarios.isCVaR()) {
+        cp.add(cp.eq(costRobust, cp.sum(costLateTotal, costHourlyTotal)));
+      } else {
+        // CVaR = min eta + E[max(0, cost_k - eta)] / (1 - alpha), over the cost of each scenario k
+        // This costs every scenario separately, numVehicles * (numSteps - 1) elements each, so Scenarios limits it to MAX_CVAR_SCENARIOS
+        IloNumVar valueAtRisk = cp.numVar(0, maxCostRobust);
+        IloNumExpr[] excessOfScenario = new IloNumExpr[scenarios.numScenarios];
+        for (int k = 0; k < scenarios.numScenarios; k++) {
+          IloNumExpr[] costOfVehicle = new IloNumExpr[data.numVehicles];
+          for (int v = 0; v < data.numVehicles; v++) {
+            IloNumExpr[] lateAtStep = new IloNumExpr[data.numSteps - 2];
+            for (int s = 0; s < data.numSteps - 2; s++)
+              lateAtStep[s] = cp.prod(cp.element(scenarios.isLate[k][s], tourOfVehicle[v]), loadDiffVehicleStep[v][s]);
+            IloNumExpr hourly = cp.element(scenarios.costHourly[k], tourOfVehicle[v]);
+            costOfVehicle[v] = cp.sum(hourly, cp.prod(data.costLateItem, cp.sum(lateAtStep)));
+          }
+          excessOfScenario[k] = cp.max(cp.diff(cp.sum(costOfVehicle), valueAtRisk), 0);
+        }
+        double weight = 1.0 / ((1 - scenarios.alpha) * scenarios.numScenarios);
+        cp.add(cp.eq(costRobust, cp.sum(valueAtRisk, cp.prod(weight, cp.sum(excessOfScenario)))));
       }
-      cp.add(cp.eq(costLateVehicle[v], cp.prod(data.costLateItem, cp.sum(costOfLateVisit))));
     }
-    cp.add(cp.eq(costLateTotal, cp.sum(costLateVehicle)));
 
     // Constraint - XII: Fixed usage cost
     cp.add(cp.eq(costFixedTotal, cp.prod(isUsedVehicle, data.costsFixed)));
@@ -216,15 +318,26 @@ public class Model {
     cp.add(cp.eq(costTotal, cp.sum(costs)));
 
     // Objective
-    if (objective < 0) {
+    if (objective < 0 && scenarios != null) {
+      // Minimize the expected or CVaR cost of late deliveries and hourly usage
+      cp.add(cp.minimize(costRobust));
+      isOptimize = true;
+    } else if (objective < 0) {
       // Minimize the number of used vehicles
       cp.add(cp.minimize(numUsedVehicles));
+      isOptimize = true;
     } else if (objective == 0) {
       // do nothing, just satisfy the model as is
     } else if (objective > 0) {
       // Fix the number of used trucks, don't exceed data.numVehicles
       cp.add(cp.eq(numUsedVehicles, Math.min(objective, data.numVehicles)));
 
+      // Minimize the expected or CVaR cost of late deliveries and hourly usage for this fleet
+      if (scenarios != null) {
+        cp.add(cp.minimize(costRobust));
+        isOptimize = true;
+      }
+
       // Try to ship everything on time
       // cp.add(cp.eq(costLateTotal, 0));
 
@@ -237,53 +350,108 @@ public class Model {
       // numZeros[v] = cp.count(visitVehicleStep[v], 0);
       // cp.add(cp.ge(cp.sum(numZeros), 81));
     }
+    metrics.stop();
+  }
+
+  // 10000 as for "mopta", or more if every vehicle driving its longest tour the whole day with every unit late can cost more
+  private double maxCost() {
+    double maxDistance = 0;
+    for (int i = 0; i < data.numLocations; i++)
+      for (int j = 0; j < data.numLocations; j++)
+        maxDistance = Math.max(maxDistance, data.distanceFromTo.get(i, j));
+
+    double costDriving = data.costPerMile * maxDistance * (data.numSteps - 1) * data.numVehicles;
+    double costHourly = data.costPerHour * (1440 - data.startTime) / 60 * data.numVehicles;
+    double costLate = data.costLateItem * data.totalDemand;
+    double costFixed = data.costFixed * data.numVehicles;
+    return Math.max(10000, costDriving + costHourly + costLate + costFixed);
   }
 
-  public void solve() throws IloException {
+  // Print solutions to the console (off for benchmarks and when exporting solutions instead)
+  public void setPrint(boolean _isPrint) {
+    isPrint = _isPrint;
+  }
+
+  // Stop the search after this many seconds, the best solution found so far is returned
+  public void setTimeLimit(double seconds) throws IloException {
+    cp.setParameter(IloCP.DoubleParam.TimeLimit, seconds);
+  }
+
+  // Release the solver, the model cannot be used afterwards
+  public void end() {
+    cp.end();
+  }
+
+  // Returns null if infeasible
+  public Solution solve() throws IloException {
     cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
-    if (cp.solve())
-      printSolution();
-    else
-      System.out.println("Infeasible!");
+    metrics.startSearch("solve");
+    Solution solution = null;
+    if (isOptimize) {
+      // Go through the improving solutions to record when each one is found, the last one is the best
+      cp.startNewSearch();
+      while (cp.next()) {
+        solution = getSolution();
+        metrics.recordSolution(cp.getObjValue());
+      }
+      recordSearch();
+      cp.endSearch();
+    } else {
+      if (cp.solve()) {
+        solution = getSolution();
+        metrics.recordSolution(solution.costTotal);
+      }
+      recordSearch();
+    }
+    metrics.stop();
+
+    if (isPrint)
+      System.out.print(solution != null ? solution.toString() : "Infeasible!\n");
+    return solution;
   }
 
-  private void printSolution() {
-    System.out.println("numUsedVehicles: " + (int) cp.getValue(numUsedVehicles));
-    System.out.println("costTotal: " + String.format("%.2f", cp.getValue(costTotal)) + " costDrivingTotal: "
-        + String.format("%.2f", cp.getValue(costDrivingTotal)) + " costLateTotal: " + String.format("%.2f", cp.getValue(costLateTotal)) + " costHourlyTotal: "
-        + String.format("%.2f", cp.getValue(costHourlyTotal)) + " costFixedTotal: " + String.format("%.2f", cp.getValue(costFixedTotal)) + "\n");
+  private void recordSearch() {
+    if (!metrics.isEnabled)
+      return;
+    metrics.numBranches = cp.getInfo(IloCP.IntInfo.NumberOfBranches);
+    metrics.numFails = cp.getInfo(IloCP.IntInfo.NumberOfFails);
+    metrics.numChoicePoints = cp.getInfo(IloCP.IntInfo.NumberOfChoicePoints);
+    metrics.numSolutions = cp.getInfo(IloCP.IntInfo.NumberOfSolutions);
+    metrics.extractionSeconds = cp.getInfo(IloCP.DoubleInfo.ExtractionTime);
+  }
 
-    for (int v = 0; v < data.numVehicles; v++) {
-      System.out.print("Vehicle " + (v + 1) + " [" + String.format("%.2f", cp.getValue(costDrivingVehicle[v])) + " + "
-          + String.format("%.2f", cp.getValue(costLateVehicle[v])) + " + " + String.format("%.2f", cp.getValue(costHourlyVehicle[v])) + "] " + "= ");
+  // The expected or CVaR cost of late deliveries and hourly usage of the last solution, the value the robust model minimizes
+  // NaN if the model is not robust or has no solution yet
+  public double getCostRobust() {
+    return costRobustOfSolution;
+  }
 
-      for (int s = 0; s < data.numSteps; s++) {
-        // the location visited at this step
-        System.out.print((int) cp.getValue(visitVehicleStep[v][s]) + " ");
+  private Solution getSolution() {
+    if (costRobust != null)
+      costRobustOfSolution = cp.getValue(costRobust);
 
-        // the time at this step
-        if (s == 0) {
-          System.out.print("@" + (int) data.startTime / 60 + ":00 ");
-        } else {
-          int hour = (int) cp.getValue(timeVehicleStep[v][s - 1]) / 60;
-          double minute = cp.getValue(timeVehicleStep[v][s - 1]) - hour * 60;
-          System.out.print("@" + hour + ":" + String.format("%.2f", minute) + " ");
-        }
+    int[] visits = new int[data.numVehicles * data.numSteps];
+    double[] arrivals = new double[data.numVehicles * (data.numSteps - 1)];
+    int[] dropOffs = new int[data.numVehicles * (data.numSteps - 2)];
+    double[] drivingVehicle = new double[data.numVehicles];
+    double[] lateVehicle = new double[data.numVehicles];
+    double[] hourlyVehicle = new double[data.numVehicles];
 
-        // the load
-        if (s == 0) {
-          // For depo, printthe amount the load it leaves with
-          System.out.print("{" + (int) cp.getValue(loadVehicleStep[v][s]) + "} -> ");
-        } else if (s != data.numSteps - 1) {
-          // For customer, print the amount delivered
-          int before = (int) cp.getValue(loadVehicleStep[v][s - 1]);
-          int after = (int) cp.getValue(loadVehicleStep[v][s]);
-          int diff = before - after;
-          System.out.print("[" + diff + "] -> ");
-        }
-      }
-      System.out.println();
+    for (int v = 0; v < data.numVehicles; v++) {
+      for (int s = 0; s < data.numSteps; s++)
+        visits[v * data.numSteps + s] = (int) cp.getValue(visitVehicleStep[v][s]);
+      for (int s = 0; s < data.numSteps - 1; s++)
+        arrivals[v * (data.numSteps - 1) + s] = cp.getValue(timeVehicleStep[v][s]);
+      for (int s = 0; s < data.numSteps - 2; s++)
+        dropOffs[v * (data.numSteps - 2) + s] = (int) cp.getValue(loadVehicleStep[v][s]) - (int) cp.getValue(loadVehicleStep[v][s + 1]);
+      drivingVehicle[v] = cp.getValue(costDrivingVehicle[v]);
+      lateVehicle[v] = cp.getValue(costLateVehicle[v]);
+      hourlyVehicle[v] = cp.getValue(costHourlyVehicle[v]);
     }
+
+    return new Solution(data.numVehicles, data.numSteps, (int) cp.getValue(numUsedVehicles), data.startTime, visits, arrivals, dropOffs, drivingVehicle,
+        lateVehicle, hourlyVehicle, cp.getValue(costTotal), cp.getValue(costDrivingTotal), cp.getValue(costLateTotal), cp.getValue(costHourlyTotal),
+        cp.getValue(costFixedTotal));
   }
 
   // Second model to generate valid tours
@@ -293,11 +461,14 @@ public class Model {
 
     cp = new IloCP();
     data = _data;
+    metrics = data.metrics;
+    metrics.start("tours.model");
 
     // Change the cost of from depo to depo to something other than 0
     // So that we can differentiate staying at depo from pairs that don't have an edge/connected
-    data.distanceFromTo[0][0] = 0.1;
-    data.flatDistances[0] = data.distanceFromTo[0][0];
+    // This is done on a copy, the data itself may be read-only
+    double[] distances = data.distanceFromTo.copyArray();
+    distances[0] = 0.1;
 
     // Variable - I: Cost variables
     costDrivingTotal = cp.numVar(0, 10000);
@@ -329,7 +500,7 @@ public class Model {
       IloIntExpr from = visitStep[s];
       IloIntExpr to = visitStep[s + 1];
       IloIntExpr flatIndex = cp.sum(cp.prod(from, data.numLocations), to);
-      costOfVisit[s] = cp.element(data.flatDistances, flatIndex);
+      costOfVisit[s] = cp.element(distances, flatIndex);
 
       // Make sure every edge has a cost
       // That is, don't allow a zero cost edge (where distance pairs don't exists)
@@ -339,24 +510,85 @@ public class Model {
 
     // DFS with maximum inference on element
     cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.DepthFirst);
-    cp.setParameter(IloCP.IntParam.ElementInferenceLevel, IloCP.ParameterValues.Extended);
 
-    // Revert back the changes on data
-    data.distanceFromTo[0][0] = 0.0;
-    data.flatDistances[0] = data.distanceFromTo[0][0];
+    // Visit steps in order, smallest location first, so that tours are enumerated in lexicographic order
+    // This way the last tour found is a frontier from which the search can be resumed
+    // The frontier depends on a single worker, several workers split the tree and find tours out of order
+    cp.setParameter(IloCP.IntParam.Workers, 1);
+    IloIntVarChooser stepOrder = cp.intVarChooser(cp.selectSmallest(cp.varIndex(visitStep)));
+    IloIntValueChooser smallestLocation = cp.intValueChooser(cp.selectSmallest(cp.value()));
+    cp.setSearchPhases(cp.searchPhase(visitStep, stepOrder, smallestLocation));
+    cp.setParameter(IloCP.IntParam.ElementInferenceLevel, IloCP.ParameterValues.Extended);
+    metrics.stop();
   }
 
   // Used to get all solutions the second model
   public void solveAll() throws IloException {
+    solveAll(null, 0);
+  }
+
+  // Used to get all solutions the second model, checkpointing every checkpointInterval solutions
+  // checkpointInterval <= 0 only marks the end, the best tours are still appended as they are found
+  // If checkpointFile already exists, the search resumes from its last checkpoint
+  public void solveAll(String checkpointFile, int checkpointInterval) throws IloException {
+    if (checkpointFile != null) {
+      try {
+        checkpoint = TourCheckpoint.open(checkpointFile, data.numSteps);
+      } catch (IOException e) {
+        System.out.println("Error: checkpoint file cannot be opened!");
+        cp.end();
+        return;
+      }
+      coveredToCost.putAll(checkpoint.coveredToCost);
+      coveredToRoute.putAll(checkpoint.coveredToRoute);
+
+      // Skip the tours before the frontier, the frontier itself is enumerated again
+      if (checkpoint.frontier != null) {
+        IloIntExpr[] frontier = new IloIntExpr[data.numSteps];
+        for (int s = 0; s < data.numSteps; s++)
+          frontier[s] = cp.intVar(checkpoint.frontier[s], checkpoint.frontier[s]);
+        cp.add(cp.lexicographic(frontier, visitStep));
+      }
+    }
+
     cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
-    cp.startNewSearch();
     int numSol = 0;
-    while (cp.next()) {
-      numSol++;
-      printSolution2();
-      System.out.println();
+    String lastRoute = null; // the frontier if the search stops at a limit
+    boolean isCompleted = checkpoint != null && checkpoint.isFinished;
+    metrics.startSearch("tours.solveAll");
+    if (!isCompleted) {
+      cp.startNewSearch();
+      while (cp.next()) {
+        numSol++;
+        lastRoute = printSolution2();
+
+        if (checkpoint != null && checkpointInterval > 0 && numSol % checkpointInterval == 0)
+          writeCheckpoint(lastRoute);
+      }
+      // Only a search that ran to the end has enumerated every tour, not one stopped by a limit
+      isCompleted = cp.getInfo(IloCP.IntInfo.SearchStatus) == IloCP.ParameterValues.SearchCompleted;
+      recordSearch();
     }
     cp.end();
+    metrics.stop();
+
+    if (checkpoint != null) {
+      try {
+        if (isCompleted) {
+          checkpoint.finish();
+        } else {
+          if (lastRoute != null)
+            checkpoint.writeFrontier(lastRoute);
+          checkpoint.close();
+        }
+      } catch (IOException e) {
+        System.out.println("Error: checkpoint file cannot be written!");
+      }
+      checkpoint = null;
+    }
+
+    if (!isPrint)
+      return;
 
     System.out.println("Total solutions: " + numSol);
     for (HashMap.Entry<HashSet<Integer>, String> entry : coveredToRoute.entrySet()) {
@@ -370,32 +602,60 @@ public class Model {
     }
   }
 
-  // To print and store only best solutions
-  private void printSolution2() {
-    HashSet<Integer> covered = new HashSet<Integer>();
-    for (int s = 0; s < data.numSteps; s++)
-      covered.add((int) cp.getValue(visitStep[s]));
+  private void writeCheckpoint(String route) {
+    try {
+      checkpoint.writeFrontier(route);
+    } catch (IOException e) {
+      System.out.println("Error: checkpoint file cannot be written!");
+    }
+  }
 
+  private String buildRoute() {
     StringBuffer buf = new StringBuffer();
     for (int s = 0; s < data.numSteps; s++)
       buf.append((int) cp.getValue(visitStep[s]) + " ");
+    return buf.toString();
+  }
+
+  // To print and store only best solutions, returns the route
+  private String printSolution2() {
+    HashSet<Integer> covered = new HashSet<Integer>();
+    for (int s = 0; s < data.numSteps; s++)
+      covered.add((int) cp.getValue(visitStep[s]));
 
-    String route = buf.toString();
+    String route = buildRoute();
     Double objective = cp.getValue(costDrivingTotal);
 
     if (!coveredToRoute.containsKey(covered)) {
       coveredToRoute.put(covered, route);
       coveredToCost.put(covered, objective);
+      writeTour(route, objective);
     } else {
       double currentObj = coveredToCost.get(covered);
       if (objective < currentObj) {
         coveredToRoute.put(covered, route);
         coveredToCost.put(covered, objective);
+        writeTour(route, objective);
       }
     }
 
-    for (Integer s : covered)
-      System.out.print(s + " ");
-    System.out.print(" - " + route + objective);
+    if (isPrint) {
+      StringBuffer buf = new StringBuffer();
+      for (Integer s : covered)
+        buf.append(s + " ");
+      buf.append(" - " + route + objective);
+      System.out.println(buf);
+    }
+    return route;
+  }
+
+  private void writeTour(String route, double objective) {
+    if (checkpoint == null)
+      return;
+    try {
+      checkpoint.writeTour(route, objective);
+    } catch (IOException e) {
+      System.out.println("Error: checkpoint file cannot be written!");
+    }
   }
 }
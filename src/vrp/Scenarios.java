@@ -0,0 +1,156 @@
+package vrp;
+
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+// Travel time scenarios for robust planning, and the table of every valid tour under each scenario
+// The travel time of an edge in a scenario is its point estimate times a mean-one lognormal noise
+// Tables are computed once, in parallel, and can be shared by any number of models on the same data
+public class Scenarios {
+  // The CVaR model needs an element per vehicle, step and scenario, so it grows with the scenarios, unlike the expectation
+  // CVaR is only available up to this many scenarios
+  public static final int MAX_CVAR_SCENARIOS = 50;
+
+  public final int numScenarios;
+  public final double sigma; // standard deviation of the log of the noise
+  public final double alpha; // CVaR level, 0 minimizes the expected cost instead
+  public final long seed;
+
+  int numTours;
+  int numSteps;
+
+  // Arrival profile, [numTours][numSteps-1][numScenarios], scenarios innermost so that they are computed together
+  double[] arrivals;
+
+  // Per tour, per scenario tables indexed by tour for element constraints
+  double[][] costHourly; // [numScenarios][numTours] hourly cost of each tour
+  int[][][] isLate; // [numScenarios][numSteps-2][numTours] 1 if the visit after step s is late
+
+  // The same tables averaged over the scenarios
+  double[] costHourlyExpected; // [numTours]
+  double[][] lateProbability; // [numSteps-2][numTours]
+
+  // Edges used by the tours, flat index from * numLocations + to, to row of the noise table
+  private HashMap<Integer, Integer> edgeIndex;
+
+  public Scenarios(Data data, int _numScenarios, double _sigma, double _alpha, long _seed) {
+    if (_alpha > 0 && _numScenarios > MAX_CVAR_SCENARIOS)
+      throw new IllegalArgumentException("CVaR is limited to " + MAX_CVAR_SCENARIOS + " scenarios, not " + _numScenarios);
+    numScenarios = _numScenarios;
+    sigma = _sigma;
+    alpha = _alpha;
+    seed = _seed;
+    numTours = data.validTours.length;
+    numSteps = data.numSteps;
+
+    data.metrics.start("scenarios");
+    double[][] noiseOfEdge = sampleNoise(data);
+    computeArrivals(data, noiseOfEdge);
+    computeCosts(data);
+    data.metrics.stop();
+  }
+
+  // Noise factor of every edge used by a tour, [numEdges][numScenarios]
+  private double[][] sampleNoise(Data data) {
+    edgeIndex = new HashMap<Integer, Integer>();
+    for (int t = 0; t < numTours; t++) {
+      for (int s = 0; s < numSteps - 1; s++) {
+        int flatIndex = data.validTours[t][s] * data.numLocations + data.validTours[t][s + 1];
+        if (!edgeIndex.containsKey(flatIndex))
+          edgeIndex.put(flatIndex, edgeIndex.size());
+      }
+    }
+
+    final int[] flatIndexOfEdge = new int[edgeIndex.size()];
+    for (HashMap.Entry<Integer, Integer> entry : edgeIndex.entrySet())
+      flatIndexOfEdge[entry.getValue()] = entry.getKey();
+
+    final double[][] noise = new double[flatIndexOfEdge.length][numScenarios];
+    IntStream.range(0, flatIndexOfEdge.length).parallel().forEach(e -> {
+      for (int k = 0; k < numScenarios; k++)
+        noise[e][k] = lognormal(flatIndexOfEdge[e], k);
+    });
+    return noise;
+  }
+
+  // Arrival at each step of each tour, scenarios vectorized in the inner loop
+  private void computeArrivals(final Data data, final double[][] noiseOfEdge) {
+    arrivals = new double[numTours * (numSteps - 1) * numScenarios];
+    final double[] times = data.timeFromTo.array();
+    IntStream.range(0, numTours).parallel().forEach(t -> {
+      int[] tour = data.validTours[t];
+      for (int s = 0; s < numSteps - 1; s++) {
+        int flatIndex = tour[s] * data.numLocations + tour[s + 1];
+        double time = times[flatIndex];
+        double[] noise = noiseOfEdge[edgeIndex.get(flatIndex)];
+        int offset = (t * (numSteps - 1) + s) * numScenarios;
+        int previous = offset - numScenarios;
+        for (int k = 0; k < numScenarios; k++)
+          arrivals[offset + k] = (s == 0 ? data.startTime : arrivals[previous + k]) + time * noise[k];
+      }
+    });
+  }
+
+  private void computeCosts(final Data data) {
+    costHourly = new double[numScenarios][numTours];
+    isLate = new int[numScenarios][numSteps - 2][numTours];
+    costHourlyExpected = new double[numTours];
+    lateProbability = new double[numSteps - 2][numTours];
+
+    IntStream.range(0, numTours).parallel().forEach(t -> {
+      // (lastTime - firstTime)/60.0 * hourlyCost, as in the deterministic model
+      int last = (t * (numSteps - 1) + numSteps - 2) * numScenarios;
+      double sum = 0;
+      for (int k = 0; k < numScenarios; k++) {
+        costHourly[k][t] = data.costPerHour * (arrivals[last + k] - data.startTime) / 60;
+        sum += costHourly[k][t];
+      }
+      costHourlyExpected[t] = sum / numScenarios;
+
+      for (int s = 0; s < numSteps - 2; s++) { // skip the visit back to depo
+        int offset = (t * (numSteps - 1) + s) * numScenarios;
+        int numLate = 0;
+        for (int k = 0; k < numScenarios; k++) {
+          isLate[k][s][t] = arrivals[offset + k] >= data.latestDeliveryTime ? 1 : 0;
+          numLate += isLate[k][s][t];
+        }
+        lateProbability[s][t] = numLate / (double) numScenarios;
+      }
+    });
+  }
+
+  // The arrival time of tour t at step s (1..numSteps-1) in scenario k
+  public double arrival(int t, int s, int k) {
+    return arrivals[(t * (numSteps - 1) + s - 1) * numScenarios + k];
+  }
+
+  public boolean isCVaR() {
+    return alpha > 0;
+  }
+
+  // Upper bound of the late and hourly cost of any plan with numVehicles vehicles, in any scenario
+  public double maxCost(Data data) {
+    double maxCostHourly = 0;
+    for (int k = 0; k < numScenarios; k++)
+      for (int t = 0; t < numTours; t++)
+        maxCostHourly = Math.max(maxCostHourly, costHourly[k][t]);
+    return maxCostHourly * data.numVehicles + data.costLateItem * data.totalDemand;
+  }
+
+  // Mean-one lognormal noise of an edge in a scenario, a pure function of the seed so that threads need no shared state
+  private double lognormal(int flatIndex, int k) {
+    long h1 = mix(seed + 0x9E3779B97F4A7C15L * (((long) flatIndex << 32) | k));
+    long h2 = mix(h1);
+    double u1 = 1.0 - (h1 >>> 11) * 0x1.0p-53; // (0, 1]
+    double u2 = (h2 >>> 11) * 0x1.0p-53;
+    double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    return Math.exp(sigma * z - sigma * sigma / 2);
+  }
+
+  // SplitMix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
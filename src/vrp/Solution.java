@@ -0,0 +1,200 @@
+package vrp;
+
+import java.nio.ByteBuffer;
+
+// Immutable solution of the routing model, stored in primitive arrays
+// Visits, arrival times and drop-offs are flattened vehicle by vehicle
+// From a robust model, arrivals are at the point estimates of the travel times while the late and hourly costs are
+// expected over the scenarios, even when the CVaR was minimized; the CVaR itself is Model.getCostRobust()
+public final class Solution {
+  public final int numVehicles;
+  public final int numSteps; // from depo + customers + to depo
+  public final int numUsedVehicles;
+  public final double startTime; // the time each vehicle leaves the depo
+  public final double costTotal;
+  public final double costDrivingTotal;
+  public final double costLateTotal;
+  public final double costHourlyTotal;
+  public final double costFixedTotal;
+
+  final int[] visits; // [numVehicles*numSteps] the visit of each vehicle at each step
+  final double[] arrivals; // [numVehicles*(numSteps-1)] the arrival time of each visit after leaving the depo
+  final int[] dropOffs; // [numVehicles*(numSteps-2)] the amount dropped at each visit between the depo steps
+  final double[] costDrivingVehicle; // [numVehicles] driving cost of each vehicle
+  final double[] costLateVehicle; // [numVehicles] cost of late deliveries of each vehicle
+  final double[] costHourlyVehicle; // [numVehicles] hourly cost of each vehicle
+
+  // The arrays are owned by the solution from now on, they are not copied
+  Solution(int _numVehicles, int _numSteps, int _numUsedVehicles, double _startTime, int[] _visits, double[] _arrivals, int[] _dropOffs,
+      double[] _costDrivingVehicle, double[] _costLateVehicle, double[] _costHourlyVehicle, double _costTotal, double _costDrivingTotal,
+      double _costLateTotal, double _costHourlyTotal, double _costFixedTotal) {
+    numVehicles = _numVehicles;
+    numSteps = _numSteps;
+    numUsedVehicles = _numUsedVehicles;
+    startTime = _startTime;
+    visits = _visits;
+    arrivals = _arrivals;
+    dropOffs = _dropOffs;
+    costDrivingVehicle = _costDrivingVehicle;
+    costLateVehicle = _costLateVehicle;
+    costHourlyVehicle = _costHourlyVehicle;
+    costTotal = _costTotal;
+    costDrivingTotal = _costDrivingTotal;
+    costLateTotal = _costLateTotal;
+    costHourlyTotal = _costHourlyTotal;
+    costFixedTotal = _costFixedTotal;
+  }
+
+  // The location visited by vehicle v at step s, 0..numSteps-1
+  public int visit(int v, int s) {
+    return visits[v * numSteps + s];
+  }
+
+  // The time vehicle v arrives at step s, 0..numSteps-1 (step 0 is leaving the depo)
+  public double arrival(int v, int s) {
+    if (s == 0)
+      return startTime;
+    return arrivals[v * (numSteps - 1) + s - 1];
+  }
+
+  // The amount vehicle v drops at step s, 1..numSteps-2
+  public int dropOff(int v, int s) {
+    return dropOffs[v * (numSteps - 2) + s - 1];
+  }
+
+  // The load vehicle v leaves the depo with
+  public int load(int v) {
+    int load = 0;
+    for (int s = 1; s < numSteps - 1; s++)
+      load += dropOff(v, s);
+    return load;
+  }
+
+  public double costDriving(int v) {
+    return costDrivingVehicle[v];
+  }
+
+  public double costLate(int v) {
+    return costLateVehicle[v];
+  }
+
+  public double costHourly(int v) {
+    return costHourlyVehicle[v];
+  }
+
+  // The same solution with every location l renamed to locationMap[l]
+  Solution relabel(int[] locationMap) {
+    int[] relabelled = new int[visits.length];
+    for (int i = 0; i < visits.length; i++)
+      relabelled[i] = locationMap[visits[i]];
+    return new Solution(numVehicles, numSteps, numUsedVehicles, startTime, relabelled, arrivals, dropOffs, costDrivingVehicle, costLateVehicle,
+        costHourlyVehicle, costTotal, costDrivingTotal, costLateTotal, costHourlyTotal, costFixedTotal);
+  }
+
+  // Read a solution written by SolutionWriter.writeBinary(), returns null if the buffer does not start with one
+  // The buffer is left after the solution, so that a stream of solutions is read by calling this until it returns null
+  public static Solution readBinary(ByteBuffer buffer) {
+    if (buffer.remaining() < 4 * 5 + 8 * 6 || buffer.getInt() != SolutionWriter.MAGIC || buffer.getInt() != SolutionWriter.VERSION)
+      return null;
+    int numVehicles = buffer.getInt();
+    int numSteps = buffer.getInt();
+    int numUsedVehicles = buffer.getInt();
+    double startTime = buffer.getDouble();
+    double costTotal = buffer.getDouble();
+    double costDrivingTotal = buffer.getDouble();
+    double costLateTotal = buffer.getDouble();
+    double costHourlyTotal = buffer.getDouble();
+    double costFixedTotal = buffer.getDouble();
+    if (numVehicles < 0 || numSteps < 2 || buffer.remaining() < 8L * 3 * numVehicles + numVehicles * (4L * numSteps + 8L * (numSteps - 1) + 4L * (numSteps - 2)))
+      return null;
+
+    double[] costDrivingVehicle = new double[numVehicles];
+    double[] costLateVehicle = new double[numVehicles];
+    double[] costHourlyVehicle = new double[numVehicles];
+    int[] visits = new int[numVehicles * numSteps];
+    double[] arrivals = new double[numVehicles * (numSteps - 1)];
+    int[] dropOffs = new int[numVehicles * (numSteps - 2)];
+    buffer.asDoubleBuffer().get(costDrivingVehicle);
+    buffer.position(buffer.position() + 8 * numVehicles);
+    buffer.asDoubleBuffer().get(costLateVehicle);
+    buffer.position(buffer.position() + 8 * numVehicles);
+    buffer.asDoubleBuffer().get(costHourlyVehicle);
+    buffer.position(buffer.position() + 8 * numVehicles);
+    buffer.asIntBuffer().get(visits);
+    buffer.position(buffer.position() + 4 * visits.length);
+    buffer.asDoubleBuffer().get(arrivals);
+    buffer.position(buffer.position() + 8 * arrivals.length);
+    buffer.asIntBuffer().get(dropOffs);
+    buffer.position(buffer.position() + 4 * dropOffs.length);
+
+    return new Solution(numVehicles, numSteps, numUsedVehicles, startTime, visits, arrivals, dropOffs, costDrivingVehicle, costLateVehicle,
+        costHourlyVehicle, costTotal, costDrivingTotal, costLateTotal, costHourlyTotal, costFixedTotal);
+  }
+
+  public String toString() {
+    StringBuilder buf = new StringBuilder();
+    buf.append("numUsedVehicles: ").append(numUsedVehicles).append("\n");
+    buf.append("costTotal: ");
+    appendFixed2(buf, costTotal);
+    buf.append(" costDrivingTotal: ");
+    appendFixed2(buf, costDrivingTotal);
+    buf.append(" costLateTotal: ");
+    appendFixed2(buf, costLateTotal);
+    buf.append(" costHourlyTotal: ");
+    appendFixed2(buf, costHourlyTotal);
+    buf.append(" costFixedTotal: ");
+    appendFixed2(buf, costFixedTotal);
+    buf.append("\n\n");
+
+    for (int v = 0; v < numVehicles; v++) {
+      buf.append("Vehicle ").append(v + 1).append(" [");
+      appendFixed2(buf, costDrivingVehicle[v]);
+      buf.append(" + ");
+      appendFixed2(buf, costLateVehicle[v]);
+      buf.append(" + ");
+      appendFixed2(buf, costHourlyVehicle[v]);
+      buf.append("] = ");
+
+      for (int s = 0; s < numSteps; s++) {
+        // the location visited at this step
+        buf.append(visit(v, s)).append(" ");
+
+        // the time at this step
+        if (s == 0) {
+          buf.append("@").append((int) startTime / 60).append(":00 ");
+        } else {
+          int hour = (int) arrival(v, s) / 60;
+          double minute = arrival(v, s) - hour * 60;
+          buf.append("@").append(hour).append(":");
+          appendFixed2(buf, minute);
+          buf.append(" ");
+        }
+
+        // the load
+        if (s == 0) {
+          // For depo, print the amount the load it leaves with
+          buf.append("{").append(load(v)).append("} -> ");
+        } else if (s != numSteps - 1) {
+          // For customer, print the amount delivered
+          buf.append("[").append(dropOff(v, s)).append("] -> ");
+        }
+      }
+      buf.append("\n");
+    }
+    return buf.toString();
+  }
+
+  // Same as String.format("%.2f", x) without going through the formatter
+  static void appendFixed2(StringBuilder buf, double x) {
+    if (x < 0) {
+      buf.append('-');
+      x = -x;
+    }
+    long cents = Math.round(x * 100);
+    buf.append(cents / 100).append('.');
+    long rest = cents % 100;
+    if (rest < 10)
+      buf.append('0');
+    buf.append(rest);
+  }
+}
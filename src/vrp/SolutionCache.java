@@ -0,0 +1,158 @@
+package vrp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// On-disk cache of solutions, keyed by the fingerprint of the instance and the objective of the model
+// Instances that differ only by how customers are numbered share an entry, solutions are stored in the canonical numbering
+// A cached solution is returned only if re-evaluating it on the instance gives back its costs, otherwise its entry is deleted
+// At most maxEntries solutions are kept, the least recently used ones are deleted first
+// Only for solutions of the point estimate model, robust costs cannot be re-evaluated from the data alone
+public class SolutionCache {
+  public static final double TOLERANCE = 1e-4; // relative, on the total cost, the solver rounds its numerical variables
+
+  File directory;
+  int maxEntries;
+
+  public SolutionCache(String _directory, int _maxEntries) {
+    directory = new File(_directory);
+    maxEntries = _maxEntries;
+    directory.mkdirs();
+  }
+
+  // The cached solution of this instance, in its own customer numbering, or null
+  public Solution get(Data data, int objective) {
+    data.metrics.start("cache.get");
+    Fingerprint fingerprint = Fingerprint.of(data);
+    File file = fileOf(fingerprint, objective);
+    Solution solution = null;
+    if (file.exists()) {
+      try {
+        Solution canonical = Solution.readBinary(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        if (canonical != null) {
+          solution = canonical.relabel(fingerprint.locationOf);
+          if (!isValid(data, solution, fingerprint))
+            solution = null;
+        }
+        if (solution != null) {
+          file.setLastModified(System.currentTimeMillis());
+        } else {
+          System.out.println("Error: cached solution does not match the instance, deleted!");
+          file.delete();
+        }
+      } catch (IOException e) {
+        System.out.println("Error: cached solution cannot be read!");
+      }
+    }
+    data.metrics.stop();
+    return solution;
+  }
+
+  public void put(Data data, int objective, Solution solution) {
+    data.metrics.start("cache.put");
+    Fingerprint fingerprint = Fingerprint.of(data);
+    File file = fileOf(fingerprint, objective);
+    try {
+      // Write aside and move in place, so that a reader never sees half a solution
+      File temporary = File.createTempFile("solution", ".tmp", directory);
+      SolutionWriter writer = SolutionWriter.open(temporary.getPath());
+      try {
+        writer.writeBinary(solution.relabel(fingerprint.canonicalOf));
+      } finally {
+        writer.close();
+      }
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      evict();
+    } catch (IOException e) {
+      System.out.println("Error: solution cannot be cached!");
+    }
+    data.metrics.stop();
+  }
+
+  private File fileOf(Fingerprint fingerprint, int objective) {
+    return new File(directory, fingerprint.key + "_" + objective + ".sol");
+  }
+
+  // Delete the least recently used solutions beyond maxEntries
+  private void evict() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(".sol"));
+    if (files == null || files.length <= maxEntries)
+      return;
+    Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+    for (int i = 0; i < files.length - maxEntries; i++)
+      files[i].delete();
+  }
+
+  // Re-evaluate the solution on the instance: routes, drop-offs, and every cost as the model defines it
+  // Every route must be in the tour table, and every edge must exist (a distance of 0 is no edge, except staying at the depo)
+  // Routes are looked up in the canonical tour table the fingerprint sorted, so nothing is allocated per tour
+  static boolean isValid(Data data, Solution solution, Fingerprint fingerprint) {
+    if (solution.numVehicles != data.numVehicles || solution.numSteps != data.numSteps)
+      return false;
+
+    int[] dropped = new int[data.numCustomers];
+    int[] route = new int[data.numSteps]; // in the canonical numbering
+    int numUsedVehicles = 0;
+    double costDrivingTotal = 0, costHourlyTotal = 0, costLateTotal = 0;
+    for (int v = 0; v < data.numVehicles; v++) {
+      for (int s = 0; s < data.numSteps; s++) {
+        int visit = solution.visit(v, s);
+        if (visit < 0 || visit > data.numCustomers)
+          return false;
+        route[s] = fingerprint.canonicalOf[visit];
+      }
+      if (route[0] != 0 || route[data.numSteps - 1] != 0)
+        return false;
+      if (Arrays.binarySearch(fingerprint.canonicalTours, route, Fingerprint.TOUR_ORDER) < 0)
+        return false;
+      if (route[1] != 0)
+        numUsedVehicles++;
+      if (solution.load(v) > data.maxCapacity)
+        return false;
+
+      double costDriving = 0, costLate = 0;
+      double time = data.startTime;
+      for (int s = 1; s < data.numSteps; s++) {
+        int from = solution.visit(v, s - 1);
+        int to = solution.visit(v, s);
+        if (data.distanceFromTo.get(from, to) == 0 && (from != 0 || to != 0))
+          return false;
+        costDriving += data.costPerMile * data.distanceFromTo.get(from, to);
+        time += data.timeFromTo.get(from, to);
+
+        if (s != data.numSteps - 1) {
+          int dropOff = solution.dropOff(v, s);
+          if (dropOff < 0 || (to == 0) != (dropOff == 0))
+            return false;
+          if (to != 0)
+            dropped[to - 1] += dropOff;
+          if (time >= data.latestDeliveryTime)
+            costLate += data.costLateItem * dropOff;
+        }
+      }
+      double costHourly = data.costPerHour * (time - data.startTime) / 60;
+      if (!isClose(costDriving, solution.costDriving(v)) || !isClose(costLate, solution.costLate(v)) || !isClose(costHourly, solution.costHourly(v)))
+        return false;
+      costDrivingTotal += costDriving;
+      costLateTotal += costLate;
+      costHourlyTotal += costHourly;
+    }
+
+    for (int c = 0; c < data.numCustomers; c++)
+      if (dropped[c] != data.demandOfCustomer[c])
+        return false;
+
+    double costFixedTotal = data.costFixed * numUsedVehicles;
+    double costTotal = costDrivingTotal + costHourlyTotal + costLateTotal + costFixedTotal;
+    return numUsedVehicles == solution.numUsedVehicles && isClose(costDrivingTotal, solution.costDrivingTotal) && isClose(costLateTotal, solution.costLateTotal)
+        && isClose(costHourlyTotal, solution.costHourlyTotal) && isClose(costFixedTotal, solution.costFixedTotal) && isClose(costTotal, solution.costTotal);
+  }
+
+  private static boolean isClose(double expected, double actual) {
+    return Math.abs(expected - actual) <= TOLERANCE * Math.max(1, Math.abs(expected));
+  }
+}
@@ -0,0 +1,222 @@
+package vrp;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Streams solutions to a channel as CSV, JSON or binary
+// Numbers are encoded straight into one reusable buffer, no intermediate strings are built
+// Values that are not finite are written as NaN, Infinity and -Infinity in CSV, and as null in JSON
+public class SolutionWriter implements Closeable {
+  public static final int MAGIC = 0x56525053; // "VRPS", start of a binary solution
+  public static final int VERSION = 1;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int DECIMALS = 6; // digits after the point for CSV and JSON
+  private static final long SCALE = 1000000L; // 10^DECIMALS
+  private static final double MAX_FIXED = 1e12; // beyond this, x * SCALE can overflow a long
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private boolean isCsvHeaderWritten; // the header is written once, before the first solution
+
+  public SolutionWriter(WritableByteChannel _channel) {
+    channel = _channel;
+    buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  }
+
+  public static SolutionWriter open(String fileName) throws IOException {
+    return new SolutionWriter(new FileOutputStream(fileName).getChannel());
+  }
+
+  // One row per vehicle and step: vehicle,step,visit,arrival,dropOff,costDriving,costLate,costHourly
+  // Vehicles are numbered from 1, dropOff is 0 at the depo steps
+  // Solutions written one after the other share the header, so they form a single table
+  public void writeCsv(Solution solution) throws IOException {
+    if (!isCsvHeaderWritten) {
+      putAscii("vehicle,step,visit,arrival,dropOff,costDriving,costLate,costHourly\n");
+      isCsvHeaderWritten = true;
+    }
+    for (int v = 0; v < solution.numVehicles; v++) {
+      for (int s = 0; s < solution.numSteps; s++) {
+        putLong(v + 1);
+        put(',');
+        putLong(s);
+        put(',');
+        putLong(solution.visit(v, s));
+        put(',');
+        putDouble(solution.arrival(v, s));
+        put(',');
+        putLong(s == 0 || s == solution.numSteps - 1 ? 0 : solution.dropOff(v, s));
+        put(',');
+        putDouble(solution.costDriving(v));
+        put(',');
+        putDouble(solution.costLate(v));
+        put(',');
+        putDouble(solution.costHourly(v));
+        put('\n');
+      }
+    }
+  }
+
+  // One JSON object per solution, followed by a new line
+  public void writeJson(Solution solution) throws IOException {
+    putAscii("{\"numUsedVehicles\":");
+    putLong(solution.numUsedVehicles);
+    putAscii(",\"costTotal\":");
+    putJsonDouble(solution.costTotal);
+    putAscii(",\"costDrivingTotal\":");
+    putJsonDouble(solution.costDrivingTotal);
+    putAscii(",\"costLateTotal\":");
+    putJsonDouble(solution.costLateTotal);
+    putAscii(",\"costHourlyTotal\":");
+    putJsonDouble(solution.costHourlyTotal);
+    putAscii(",\"costFixedTotal\":");
+    putJsonDouble(solution.costFixedTotal);
+    putAscii(",\"vehicles\":[");
+    for (int v = 0; v < solution.numVehicles; v++) {
+      if (v > 0)
+        put(',');
+      putAscii("{\"vehicle\":");
+      putLong(v + 1);
+      putAscii(",\"costDriving\":");
+      putJsonDouble(solution.costDriving(v));
+      putAscii(",\"costLate\":");
+      putJsonDouble(solution.costLate(v));
+      putAscii(",\"costHourly\":");
+      putJsonDouble(solution.costHourly(v));
+      putAscii(",\"visits\":[");
+      for (int s = 0; s < solution.numSteps; s++) {
+        if (s > 0)
+          put(',');
+        putLong(solution.visit(v, s));
+      }
+      putAscii("],\"arrivals\":[");
+      for (int s = 0; s < solution.numSteps; s++) {
+        if (s > 0)
+          put(',');
+        putJsonDouble(solution.arrival(v, s));
+      }
+      putAscii("],\"dropOffs\":[");
+      for (int s = 1; s < solution.numSteps - 1; s++) {
+        if (s > 1)
+          put(',');
+        putLong(solution.dropOff(v, s));
+      }
+      putAscii("]}");
+    }
+    putAscii("]}\n");
+  }
+
+  // Header, totals, then the primitive arrays as they are stored in the solution
+  public void writeBinary(Solution solution) throws IOException {
+    ensure(4 * 5 + 8 * 6);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putInt(solution.numVehicles);
+    buffer.putInt(solution.numSteps);
+    buffer.putInt(solution.numUsedVehicles);
+    buffer.putDouble(solution.startTime);
+    buffer.putDouble(solution.costTotal);
+    buffer.putDouble(solution.costDrivingTotal);
+    buffer.putDouble(solution.costLateTotal);
+    buffer.putDouble(solution.costHourlyTotal);
+    buffer.putDouble(solution.costFixedTotal);
+    putDoubles(solution.costDrivingVehicle);
+    putDoubles(solution.costLateVehicle);
+    putDoubles(solution.costHourlyVehicle);
+    putInts(solution.visits);
+    putDoubles(solution.arrivals);
+    putInts(solution.dropOffs);
+  }
+
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  private void ensure(int numBytes) throws IOException {
+    if (buffer.remaining() < numBytes)
+      flush();
+  }
+
+  private void put(char c) throws IOException {
+    ensure(1);
+    buffer.put((byte) c);
+  }
+
+  private void putAscii(String s) throws IOException {
+    for (int i = 0; i < s.length(); i++)
+      put(s.charAt(i));
+  }
+
+  private void putInts(int[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      ensure(4);
+      buffer.putInt(values[i]);
+    }
+  }
+
+  private void putDoubles(double[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      ensure(8);
+      buffer.putDouble(values[i]);
+    }
+  }
+
+  // Decimal digits of a long, written back to front into the buffer
+  private void putLong(long x) throws IOException {
+    ensure(20);
+    if (x < 0) {
+      buffer.put((byte) '-');
+      x = -x;
+    }
+    int numDigits = 1;
+    for (long rest = x / 10; rest > 0; rest /= 10)
+      numDigits++;
+    int end = buffer.position() + numDigits;
+    for (int i = end - 1; i >= buffer.position(); i--) {
+      buffer.put(i, (byte) ('0' + x % 10));
+      x /= 10;
+    }
+    buffer.position(end);
+  }
+
+  private void putJsonDouble(double x) throws IOException {
+    if (Double.isNaN(x) || Double.isInfinite(x))
+      putAscii("null");
+    else
+      putDouble(x);
+  }
+
+  // Fixed point with DECIMALS digits after the point
+  // Values too large for a long once scaled, and values that are not finite, are written as Double.toString() does
+  private void putDouble(double x) throws IOException {
+    if (Double.isNaN(x) || Double.isInfinite(x) || Math.abs(x) >= MAX_FIXED) {
+      putAscii(Double.toString(x));
+      return;
+    }
+    if (x < 0) {
+      put('-');
+      x = -x;
+    }
+    long scaled = Math.round(x * SCALE);
+    putLong(scaled / SCALE);
+    put('.');
+    long fraction = scaled % SCALE;
+    ensure(DECIMALS);
+    for (long digit = SCALE / 10; digit > 0; digit /= 10) {
+      buffer.put((byte) ('0' + fraction / digit));
+      fraction %= digit;
+    }
+  }
+}
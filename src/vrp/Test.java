@@ -14,14 +14,28 @@ public class Test {
     // Constraint Model for Vehicle Routing
     boolean isSymBreak = false;
     int objective = -1; // (-) minimize, (0) satisfy, (+) limit vehicles with this number
-    Model vrp = new Model(data, isSymBreak, objective);
 
-    // Solution
-    Timer timer = new Timer();
-    timer.start();
-    vrp.solve();
-    timer.stop();
-    System.out.println("\nTime: " + timer.getTime());
+    // Reuse the solution of an identical instance, up to the numbering of customers, if it was solved before
+    SolutionCache cache = new SolutionCache("cache", 100);
+    Solution solution = cache.get(data, objective);
+    if (solution != null) {
+      System.out.print(solution);
+    } else {
+      Model vrp = new Model(data, isSymBreak, objective);
+
+      // Robust planning against travel time noise: 50 scenarios with 20% noise, minimize the CVaR at 90% (0 for the expectation)
+      // Scenarios scenarios = new Scenarios(data, 50, 0.2, 0.9, 42);
+      // Model vrp = new Model(data, isSymBreak, objective, scenarios); (not cached, costs depend on the scenarios)
+
+      // Solution
+      solution = vrp.solve();
+      if (solution != null)
+        cache.put(data, objective, solution);
+    }
+
+    // Time and allocation of each phase, and solver statistics
+    System.out.println("\n" + data.metrics);
+    data.metrics.writeJson("metrics.json");
   }
 
   static void generateValidTours() throws IloException {
@@ -33,10 +47,9 @@ public class Test {
     Model tours = new Model(data);
 
     // Solution
-    Timer timer = new Timer();
-    timer.start();
-    tours.solveAll(); // find all valid tours (this can include duplicates!)
-    timer.stop();
-    System.out.println("\nTime: " + timer.getTime());
+    // find all valid tours (this can include duplicates!), checkpointing every 1000 tours to resume from if interrupted
+    // the checkpoint can also be read as a tour table with new Data("mopta", "data/valid_routes_checkpoint.txt")
+    tours.solveAll("data/valid_routes_checkpoint.txt", 1000);
+    System.out.println("\n" + data.metrics);
   }
 }
\ No newline at end of file
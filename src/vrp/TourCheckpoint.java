@@ -0,0 +1,151 @@
+package vrp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// Append-only checkpoint of the valid tour enumeration, one record per line:
+//   T <cost> <visit_0> ... <visit_n-1>   best tour so far for the set it covers (a later T line supersedes an earlier one)
+//   F <visit_0> ... <visit_n-1>          search frontier, the last tour enumerated before the checkpoint
+//   E                                    enumeration finished
+// A record cut short by a crash has no trailing newline; it is dropped when the file is reopened.
+public class TourCheckpoint {
+  String fileName;
+  int numSteps; // the length of each tour
+  BufferedWriter out;
+
+  // State recovered from the file
+  HashMap<HashSet<Integer>, Double> coveredToCost; // covered set of locations to route cost
+  HashMap<HashSet<Integer>, String> coveredToRoute; // covered set of locations to route string
+  int[] frontier; // null if no frontier was recorded yet
+  boolean isFinished;
+
+  private TourCheckpoint(String _fileName, int _numSteps) {
+    fileName = _fileName;
+    numSteps = _numSteps;
+    coveredToCost = new HashMap<HashSet<Integer>, Double>();
+    coveredToRoute = new HashMap<HashSet<Integer>, String>();
+  }
+
+  // Recover the state of a checkpoint without changing the file, a run may still be appending to it
+  public static TourCheckpoint read(String fileName, int numSteps) throws IOException {
+    TourCheckpoint checkpoint = new TourCheckpoint(fileName, numSteps);
+    File file = new File(fileName);
+    if (file.exists())
+      checkpoint.read(file);
+    return checkpoint;
+  }
+
+  // Recover the state of a checkpoint and prepare it for appending, only for the run that owns the file
+  public static TourCheckpoint open(String fileName, int numSteps) throws IOException {
+    TourCheckpoint checkpoint = new TourCheckpoint(fileName, numSteps);
+    File file = new File(fileName);
+    if (file.exists()) {
+      long validLength = checkpoint.read(file);
+
+      // Drop a partially written last record so that new records start on a fresh line
+      if (validLength < file.length()) {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+          raf.setLength(validLength);
+        } finally {
+          raf.close();
+        }
+      }
+    }
+    checkpoint.out = new BufferedWriter(new FileWriter(file, true));
+    return checkpoint;
+  }
+
+  // Replay the records, returns the length of the file up to the last complete record
+  private long read(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    int end = bytes.length;
+    while (end > 0 && bytes[end - 1] != '\n')
+      end--;
+
+    String[] lines = new String(bytes, 0, end, StandardCharsets.US_ASCII).split("\n");
+    for (String line : lines) {
+      String[] tokens = line.trim().split("\\s+");
+      if (tokens[0].equals("T") && tokens.length == numSteps + 2) {
+        double cost = Double.parseDouble(tokens[1]);
+        int[] tour = parseTour(tokens, 2);
+        HashSet<Integer> covered = coveredOf(tour);
+        Double currentCost = coveredToCost.get(covered);
+        if (currentCost == null || cost < currentCost) {
+          coveredToCost.put(covered, cost);
+          coveredToRoute.put(covered, routeOf(tour));
+        }
+      } else if (tokens[0].equals("F") && tokens.length == numSteps + 1) {
+        frontier = parseTour(tokens, 1);
+      } else if (tokens[0].equals("E")) {
+        isFinished = true;
+      }
+    }
+    return end;
+  }
+
+  // Record a new best tour for the set it covers
+  public void writeTour(String route, double cost) throws IOException {
+    out.write("T " + cost + " " + route.trim() + "\n");
+  }
+
+  // Record the frontier and make everything written so far durable
+  public void writeFrontier(String route) throws IOException {
+    out.write("F " + route.trim() + "\n");
+    out.flush();
+  }
+
+  // Mark the enumeration as finished, unless it already was, and close the file
+  // Only for a search that ran to the end, a search stopped at a limit is closed instead
+  public void finish() throws IOException {
+    if (!isFinished)
+      out.write("E\n");
+    isFinished = true;
+    out.close();
+  }
+
+  // Close the file without marking the enumeration as finished, the next run resumes from the last frontier
+  public void close() throws IOException {
+    out.close();
+  }
+
+  // Read the best tours of a checkpoint file as a tour table
+  public static int[][] readTours(String fileName, int numSteps) throws IOException {
+    TourCheckpoint checkpoint = read(fileName, numSteps);
+
+    ArrayList<int[]> tours = new ArrayList<int[]>();
+    for (String route : checkpoint.coveredToRoute.values())
+      tours.add(parseTour(route.trim().split("\\s+"), 0));
+    return tours.toArray(new int[tours.size()][]);
+  }
+
+  static int[] parseTour(String[] tokens, int from) {
+    int[] tour = new int[tokens.length - from];
+    for (int s = 0; s < tour.length; s++)
+      tour[s] = Integer.parseInt(tokens[from + s]);
+    return tour;
+  }
+
+  static HashSet<Integer> coveredOf(int[] tour) {
+    HashSet<Integer> covered = new HashSet<Integer>();
+    for (int s = 0; s < tour.length; s++)
+      covered.add(tour[s]);
+    return covered;
+  }
+
+  // Same format as the route strings built during search
+  static String routeOf(int[] tour) {
+    StringBuffer buf = new StringBuffer();
+    for (int s = 0; s < tour.length; s++)
+      buf.append(tour[s] + " ");
+    return buf.toString();
+  }
+}